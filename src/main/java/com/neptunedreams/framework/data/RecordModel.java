@@ -24,6 +24,7 @@ public class RecordModel<R> implements Serializable {
   // foundItems should be a RandomAccess list
   private List<@NotNull R> foundItems = new ArrayList<>();
   private int recordIndex = 0;
+  private int modificationCount = 0;
   private final Supplier<@NotNull R> recordConstructor;
   private final @NotNull Function<R, Integer> getIdFunction;
 
@@ -43,6 +44,13 @@ public class RecordModel<R> implements Serializable {
 
   public int getSize() { return foundItems.size(); }
 
+  /**
+   * Gets the number of times the list of records has changed. It changes when the model gets a new list, or when
+   * records are added or removed, but not when the fields of a record get edited.
+   * @return the modification count
+   */
+  public int getModificationCount() { return modificationCount; }
+
   /**
    * Adds the listener to the list of RecordModelListeners
    * @param listener The listener
@@ -62,6 +70,7 @@ public class RecordModel<R> implements Serializable {
   public void setNewList(Collection<? extends @NotNull R> records) {
     int priorSelectionId = (foundItems.size() > recordIndex) ? getIdFunction.apply(foundItems.get(recordIndex)) : 0;
     foundItems = new ArrayList<>(records);
+    modificationCount++;
     // Not sure if this test is needed, or if we can just always set the record index to zero.
     if (recordIndex >= foundItems.size()) {
       setRecordIndex(0);
@@ -127,6 +136,15 @@ public class RecordModel<R> implements Serializable {
     setRecordIndex(foundItems.size()-1);
   }
 
+  /**
+   * Go to the record at the specified index of {@code foundItems}
+   * @param index The index of the record
+   */
+  public void goToRecord(int index) {
+    assert (index >= 0) && (index < foundItems.size()) : index;
+    setRecordIndex(index);
+  }
+
   private void setRecordIndex(final int i) {
     if (i != recordIndex) {
       int prior = recordIndex;
@@ -148,6 +166,7 @@ public class RecordModel<R> implements Serializable {
   public void append(@NotNull R insertedRecord) {
     final int newIndex = foundItems.size();
     foundItems.add(insertedRecord);
+    modificationCount++;
     setRecordIndex(newIndex);
     fireModelListChanged();
   }
@@ -158,6 +177,7 @@ public class RecordModel<R> implements Serializable {
     }
     R emptyRecord = createNewEmptyRecord();
     foundItems.add(emptyRecord);
+    modificationCount++;
     fireModelListChanged(); // Is it dangerous to fire the listener before returning the record?
     return emptyRecord;
   }
@@ -196,6 +216,7 @@ public class RecordModel<R> implements Serializable {
   public void deleteSelected(boolean notify, int index) {
     if (index >= 0) {
       foundItems.remove(index);
+      modificationCount++;
       if (foundItems.isEmpty()) {
         foundItems.add(createNewEmptyRecord());
       }
@@ -0,0 +1,116 @@
+package com.neptunedreams.framework.event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Statistics for an event bus in asynchronous mode. Dispatch latency is the time between the moment an event is
+ * posted and the moment a worker thread starts dispatching it. It doesn't include the time the subscribers take.
+ * <p>
+ * All values are live, and may be read from any thread.
+ *
+ * @author Miguel Muñoz
+ */
+@SuppressWarnings("WeakerAccess")
+public final class AsyncMetrics {
+  private final int queueCapacity;
+  private final IntSupplier queueDepth;
+  private final AtomicLong peakQueueDepth = new AtomicLong();
+  private final LongAdder posted = new LongAdder();
+  private final LongAdder dispatched = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder callerRuns = new LongAdder();
+  private final LongAdder totalLatencyNanos = new LongAdder();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+  AsyncMetrics(int queueCapacity, IntSupplier queueDepth) {
+    this.queueCapacity = queueCapacity;
+    this.queueDepth = queueDepth;
+  }
+
+  void eventQueued() {
+    posted.increment();
+    peakQueueDepth.accumulateAndGet(queueDepth.getAsInt(), Math::max);
+  }
+
+  void eventDropped() { dropped.increment(); }
+
+  void eventRunByCaller() { callerRuns.increment(); }
+
+  void eventDispatched(long latencyNanos) {
+    dispatched.increment();
+    totalLatencyNanos.add(latencyNanos);
+    maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+  }
+
+  /**
+   * Gets the capacity of the queue
+   * @return the maximum number of events that may wait in the queue
+   */
+  public int getQueueCapacity() { return queueCapacity; }
+
+  /**
+   * Gets the number of events currently waiting in the queue.
+   * @return the current queue depth
+   */
+  public int getQueueDepth() { return queueDepth.getAsInt(); }
+
+  /**
+   * Gets the largest number of events seen waiting in the queue.
+   * @return the peak queue depth
+   */
+  public long getPeakQueueDepth() { return peakQueueDepth.get(); }
+
+  /**
+   * Gets the number of events put on the queue. This doesn't include dropped events or events run by the caller.
+   * @return the number of queued events
+   */
+  public long getQueuedCount() { return posted.sum(); }
+
+  /**
+   * Gets the number of events taken off the queue and dispatched by the worker threads.
+   * @return the number of dispatched events
+   */
+  public long getDispatchedCount() { return dispatched.sum(); }
+
+  /**
+   * Gets the number of events discarded because the queue was full.
+   * @return the number of dropped events
+   */
+  public long getDroppedCount() { return dropped.sum(); }
+
+  /**
+   * Gets the number of events dispatched by the posting thread because the queue was full.
+   * @return the number of events run by the caller
+   */
+  public long getCallerRunsCount() { return callerRuns.sum(); }
+
+  /**
+   * Gets the average time events waited in the queue.
+   * @param unit The time unit of the result
+   * @return the average dispatch latency, or zero if nothing has been dispatched.
+   */
+  public double getAverageLatency(TimeUnit unit) {
+    long count = dispatched.sum();
+    return (count == 0) ? 0.0 : ((double) totalLatencyNanos.sum() / count / unit.toNanos(1));
+  }
+
+  /**
+   * Gets the longest time an event waited in the queue.
+   * @param unit The time unit of the result
+   * @return the maximum dispatch latency
+   */
+  public long getMaxLatency(TimeUnit unit) {
+    return unit.convert(maxLatencyNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    //noinspection HardCodedStringLiteral
+    return String.format("AsyncMetrics[depth=%d/%d, peak=%d, queued=%d, dispatched=%d, dropped=%d, callerRuns=%d, avgLatency=%.3f ms, maxLatency=%d ms]",
+        getQueueDepth(), queueCapacity, getPeakQueueDepth(), getQueuedCount(), getDispatchedCount(), getDroppedCount(),
+        getCallerRunsCount(), getAverageLatency(TimeUnit.MILLISECONDS), getMaxLatency(TimeUnit.MILLISECONDS));
+  }
+}
@@ -0,0 +1,20 @@
+package com.neptunedreams.framework.event;
+
+/**
+ * What to do when an event is posted in asynchronous mode and the queue is full.
+ *
+ * @author Miguel Muñoz
+ */
+public enum BackPressure {
+  /** The posting thread waits until there's room in the queue. Don't use this if events get posted from subscribers. */
+  BLOCK,
+
+  /** The new event is discarded. */
+  DROP_NEWEST,
+
+  /** The oldest event in the queue is discarded to make room for the new one. */
+  DROP_OLDEST,
+
+  /** The posting thread dispatches the event itself, as if the bus were synchronous. */
+  CALLER_RUNS
+}
@@ -1,16 +1,35 @@
 package com.neptunedreams.framework.event;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * We wrap the CurrentRecord in this event class rather than passing it directly because it's a generic type, 
  * so the EventBus registers it as an Object, and it gets called for any event type.
+ * <p>
+ * When the event can't be delivered right away, it also carries the record to the handlers of the record change 
+ * channel, which get it as the event is dispatched, before the subscribers do.
  * @param <R> The type of the record.
  */
 public class ChangeRecord<R> {
   private final @NotNull R newRecord;
+  private final @Nullable RecordChangeChannel channel;
+
   ChangeRecord(@NotNull R record) {
+    this(record, null);
+  }
+
+  ChangeRecord(@NotNull R record, @Nullable RecordChangeChannel channel) {
     newRecord = record;
+    this.channel = channel;
+  }
+
+  /**
+   * Called by the dispatcher as the event gets dispatched, before its subscribers.
+   * @return true if a handler took the record
+   */
+  boolean deliverToChannel() {
+    return (channel != null) && channel.deliver(newRecord);
   }
   
   @SuppressWarnings("WeakerAccess")
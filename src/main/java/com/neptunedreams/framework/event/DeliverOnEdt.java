@@ -0,0 +1,23 @@
+package com.neptunedreams.framework.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code @Subscribe} method that must run on the Event Dispatch Thread. When an event is posted from another
+ * thread, or dispatched by a worker thread in asynchronous mode, the call to this subscriber is handed to the
+ * EventDispatchThread with {@code SwingUtilities.invokeLater()}. When the event is posted on the Event Dispatch
+ * Thread in synchronous mode, the subscriber is called directly.
+ * <p>
+ * Subscribers without this annotation are called on whichever thread dispatches the event.
+ *
+ * @author Miguel Muñoz
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface DeliverOnEdt {
+}
@@ -0,0 +1,50 @@
+package com.neptunedreams.framework.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates an event bus facade class, in the style of {@link MasterEventBus}, from an event interface. Each method of
+ * the interface is an event. The generated class has a static post method for each event, and a static register
+ * method that only accepts implementations of the interface, so registering a handler with the wrong bus is a
+ * compile-time error. Posting calls each handler's interface method directly, with no reflection.
+ * <p>
+ * For example, this interface:
+ * <pre> {@code @EventBusFacade("PipelineBus")
+ * public interface PipelineEvents {
+ *   void recordLoaded(Record record);
+ *   default void searchFinished(int count) { }
+ * }}</pre>
+ * generates a class called {@code PipelineBus} in the same package, with these methods:
+ * <pre> {@code
+ * public static void registerPipelineBusHandler(PipelineEvents handler)
+ * public static void unregisterPipelineBusHandler(PipelineEvents handler)
+ * public static void postRecordLoaded(Record record)
+ * public static void postSearchFinished(int count)
+ * }</pre>
+ * Handlers are called synchronously on the posting thread, in the order they were registered. Exceptions thrown by
+ * handlers are logged, and don't stop the event from reaching other handlers. Default methods let a handler ignore
+ * the events it doesn't care about.
+ * <p>
+ * Event methods must return void, may not be generic, and may not throw checked exceptions. The interface may not be
+ * generic either. The parameters of the post methods are named {@code arg0}, {@code arg1}, and so on.
+ * <p>
+ * The processor isn't in the main Tango jar, so it doesn't run in every project that uses Tango. It's in the jar with
+ * the classifier {@code processor}. To generate facades, put that jar and the main jar on the annotation processor
+ * path. With Maven, add them to the {@code annotationProcessorPaths} of the compiler plugin.
+ *
+ * @author Miguel Muñoz
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface EventBusFacade {
+  /**
+   * The simple name of the generated facade class. If empty, the name is the interface name followed by "Bus".
+   * @return The name of the facade class
+   */
+  String value() default "";
+}
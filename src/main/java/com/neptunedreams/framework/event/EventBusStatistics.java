@@ -0,0 +1,123 @@
+package com.neptunedreams.framework.event;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the events posted to an event bus, and times its subscribers, so we can find the subscribers that are
+ * slowing down the Event Dispatch Thread. Counts are kept by event class, and include dead events, which are events
+ * that were posted with no subscribers. Each call to a subscriber method is timed on the thread that runs it, so
+ * subscribers annotated with {@link DeliverOnEdt} are timed on the Event Dispatch Thread.
+ * <p>
+ * Every getter returns a snapshot, which doesn't change as more events are posted. The same values are available
+ * through JMX, as an {@link EventBusStatisticsMXBean}.
+ *
+ * @author Miguel Muñoz
+ */
+public final class EventBusStatistics implements EventBusStatisticsMXBean {
+  private final ConcurrentHashMap<Class<?>, LongAdder> postCounts = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Class<?>, LongAdder> deadEventCounts = new ConcurrentHashMap<>();
+  private final List<SubscriberTimer> timers = new CopyOnWriteArrayList<>();
+
+  EventBusStatistics() { }
+
+  void eventPosted(Class<?> eventClass) {
+    postCounts.computeIfAbsent(eventClass, c -> new LongAdder()).increment();
+  }
+
+  void deadEvent(Class<?> eventClass) {
+    deadEventCounts.computeIfAbsent(eventClass, c -> new LongAdder()).increment();
+  }
+
+  SubscriberTimer createTimer(String subscriber, Class<?> eventType) {
+    SubscriberTimer timer = new SubscriberTimer(subscriber, eventType.getName());
+    timers.add(timer);
+    return timer;
+  }
+
+  @Override
+  public Map<String, Long> getPostCounts() {
+    return snapshot(postCounts);
+  }
+
+  @Override
+  public Map<String, Long> getDeadEventCounts() {
+    return snapshot(deadEventCounts);
+  }
+
+  private static Map<String, Long> snapshot(Map<Class<?>, LongAdder> counts) {
+    Map<String, Long> snapshot = new TreeMap<>();
+    counts.forEach((type, count) -> snapshot.put(type.getName(), count.sum()));
+    return snapshot;
+  }
+
+  @Override
+  public List<SubscriberTiming> getSubscriberTimings() {
+    List<SubscriberTiming> timings = new ArrayList<>();
+    for (SubscriberTimer timer : timers) {
+      timings.add(timer.snapshot());
+    }
+    timings.sort(Comparator.comparingLong(SubscriberTiming::getTotalNanos).reversed());
+    return timings;
+  }
+
+  @Override
+  public void reset() {
+    postCounts.clear();
+    deadEventCounts.clear();
+    for (SubscriberTimer timer : timers) {
+      timer.reset();
+    }
+  }
+
+  /**
+   * Accumulates the handling times of one subscriber method.
+   */
+  static final class SubscriberTimer {
+    private final String subscriber;
+    private final String eventType;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(SubscriberTiming.BUCKET_LIMITS_MICROS.length + 1);
+
+    private SubscriberTimer(String subscriber, String eventType) {
+      this.subscriber = subscriber;
+      this.eventType = eventType;
+    }
+
+    void record(long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      if (nanos > maxNanos.get()) {
+        maxNanos.accumulateAndGet(nanos, Math::max);
+      }
+      histogram.incrementAndGet(SubscriberTiming.bucketFor(nanos));
+    }
+
+    SubscriberTiming snapshot() {
+      long[] buckets = new long[histogram.length()];
+      for (int i = 0; i < buckets.length; ++i) {
+        buckets[i] = histogram.get(i);
+      }
+      return new SubscriberTiming(subscriber, eventType, count.sum(), totalNanos.sum(), maxNanos.get(), buckets);
+    }
+
+    void reset() {
+      count.reset();
+      totalNanos.reset();
+      maxNanos.set(0L);
+      for (int i = 0; i < histogram.length(); ++i) {
+        histogram.set(i, 0L);
+      }
+    }
+  }
+}
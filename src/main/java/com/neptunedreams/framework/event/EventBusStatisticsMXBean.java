@@ -0,0 +1,35 @@
+package com.neptunedreams.framework.event;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JMX view of an {@link EventBusStatistics}.
+ *
+ * @author Miguel Muñoz
+ */
+@SuppressWarnings("unused")
+public interface EventBusStatisticsMXBean {
+  /**
+   * Gets the number of events posted, by event class name.
+   * @return The post counts
+   */
+  Map<String, Long> getPostCounts();
+
+  /**
+   * Gets the number of events posted with no subscribers, by event class name.
+   * @return The dead event counts
+   */
+  Map<String, Long> getDeadEventCounts();
+
+  /**
+   * Gets the handling times of each subscriber, slowest total first.
+   * @return The subscriber timings
+   */
+  List<SubscriberTiming> getSubscriberTimings();
+
+  /**
+   * Clears all the counts and timings.
+   */
+  void reset();
+}
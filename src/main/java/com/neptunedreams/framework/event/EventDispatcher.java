@@ -0,0 +1,725 @@
+package com.neptunedreams.framework.event;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The engine behind an event bus facade like {@link MasterEventBus}. It finds {@code @Subscribe} methods the same way
+ * Guava's EventBus does, and delivers events the same way: subscribers to a supertype of the event also receive it,
+ * events with no subscribers are re-posted as a {@link DeadEvent}, exceptions thrown by subscribers are logged, and
+ * events posted by a subscriber are delivered after the current event has reached all of its subscribers.
+ * <p>
+ * As with Guava's EventBus, registering the same handler twice has no effect, and a subscriber method is never called
+ * on two threads at once, unless it's annotated with {@link AllowConcurrentEvents}.
+ * <p>
+ * Unlike Guava's EventBus, each subscriber decides which thread it runs on. Subscribers annotated with
+ * {@link DeliverOnEdt} always run on the Event Dispatch Thread. The dispatcher may also be switched into asynchronous
+ * mode, where posted events go onto a bounded queue and are dispatched by a small pool of worker threads, so the
+ * posting thread doesn't wait for the subscribers.
+ * <p>
+ * Subscriber methods are looked up once, when the handler is registered, and each one is compiled into a
+ * {@link MethodHandle}. For each event class, the subscribers to that class and all its supertypes are flattened into
+ * an array the first time the class is posted, and the array is reused until the next registration. So a
+ * synchronous post does no reflection and allocates nothing, unless it has to hand a call to the Event Dispatch
+ * Thread.
+ * <p>
+ * Event types may be set to coalesce. When several events of a coalescing type are posted before the Event Dispatch
+ * Thread gets around to them, or within a specified time window, only the latest one gets delivered. This lets
+ * subscribers do expensive work, like loading a record into the user interface, once per frame rather than once per
+ * event.
+ * <p>
+ * Instrumentation may be turned on, to count posted and dead events and time each subscriber. See
+ * {@link EventBusStatistics}. When it's off, it costs nothing but a volatile read per post and per subscriber call.
+ * <p>
+ * Like the EventBus it replaces, instances should stay private to their facade classes.
+ *
+ * @author Miguel Muñoz
+ */
+final class EventDispatcher {
+  private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+  private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class);
+
+  private final String identifier;
+  private final Logger logger;
+
+  private final ConcurrentHashMap<Class<?>, CopyOnWriteArrayList<Subscriber>> subscribersByType = new ConcurrentHashMap<>();
+
+  // Subscribers for each posted event class, including subscribers to its supertypes. Cleared on registration.
+  private final ConcurrentHashMap<Class<?>, Subscriber[]> dispatchTable = new ConcurrentHashMap<>();
+
+  // Events posted while this thread is already dispatching get queued here, to preserve ordering.
+  private final ThreadLocal<DispatchState> dispatchState = ThreadLocal.withInitial(DispatchState::new);
+
+  private volatile @Nullable AsyncQueue asyncQueue = null;
+
+  // Keyed by the exact class of the event.
+  private final ConcurrentHashMap<Class<?>, Coalescer> coalescers = new ConcurrentHashMap<>();
+
+  private volatile @Nullable EventBusStatistics statistics = null;
+
+  EventDispatcher(String identifier) {
+    this.identifier = identifier;
+    logger = Logger.getLogger(MasterEventBus.class.getName() + '.' + identifier);
+  }
+
+  String getIdentifier() { return identifier; }
+
+  // Registration
+
+  /**
+   * Register all the {@code @Subscribe} methods of the handler.
+   * @param handler The object with subscriber methods
+   */
+  synchronized void register(Object handler) {
+    for (Method method : findSubscriberMethods(handler.getClass())) {
+      Class<?> eventType = method.getParameterTypes()[0];
+      Subscriber subscriber = new Subscriber(handler, method, method.isAnnotationPresent(DeliverOnEdt.class));
+      // A handler that's already registered keeps its existing subscribers.
+      if (subscribersByType.computeIfAbsent(eventType, t -> new CopyOnWriteArrayList<>()).addIfAbsent(subscriber)) {
+        final EventBusStatistics stats = statistics;
+        if (stats != null) {
+          subscriber.startTiming(stats);
+        }
+      }
+    }
+    dispatchTable.clear();
+  }
+
+  /**
+   * Gets all the subscribers that should receive an event of the specified class, building the array if this is the
+   * first post of the class since the last registration.
+   */
+  private Subscriber[] getSubscribers(Class<?> eventClass) {
+    Subscriber[] subscribers = dispatchTable.get(eventClass);
+    return (subscribers == null) ? buildSubscribers(eventClass) : subscribers;
+  }
+
+  // Synchronized with register(), so we can't cache an array that's missing a newly registered subscriber.
+  private synchronized Subscriber[] buildSubscribers(Class<?> eventClass) {
+    Subscriber[] subscribers = dispatchTable.get(eventClass);
+    if (subscribers == null) {
+      List<Subscriber> subscriberList = new ArrayList<>();
+      for (Class<?> type : allSupertypes(eventClass)) {
+        final List<Subscriber> typeSubscribers = subscribersByType.get(type);
+        if (typeSubscribers != null) {
+          subscriberList.addAll(typeSubscribers);
+        }
+      }
+      subscribers = subscriberList.isEmpty() ? NO_SUBSCRIBERS : subscriberList.toArray(NO_SUBSCRIBERS);
+      dispatchTable.put(eventClass, subscribers);
+    }
+    return subscribers;
+  }
+
+  /**
+   * Returns true if an event of the specified class would reach at least one subscriber.
+   * @param eventClass The class of the event
+   * @return true if the event has subscribers, false if it would be a dead event
+   */
+  boolean hasSubscribers(Class<?> eventClass) {
+    return getSubscribers(eventClass).length > 0;
+  }
+
+  private static List<Method> findSubscriberMethods(Class<?> handlerClass) {
+    List<Method> methods = new ArrayList<>();
+    Set<String> signatures = new HashSet<>();
+    for (Class<?> type : allSupertypes(handlerClass)) {
+      for (Method method : type.getDeclaredMethods()) {
+        if (method.isAnnotationPresent(Subscribe.class) && !method.isSynthetic()) {
+          if (method.getParameterCount() != 1) {
+            throw new IllegalArgumentException(String.format(
+                "Method %s has @Subscribe annotation but has %d parameters. Subscriber methods must have exactly 1 parameter.",
+                method, method.getParameterCount()));
+          }
+          if (method.getParameterTypes()[0].isPrimitive()) {
+            throw new IllegalArgumentException(String.format(
+                "@Subscribe method %s's parameter is %s. Subscriber methods cannot accept primitives.",
+                method, method.getParameterTypes()[0].getName()));
+          }
+          // An overriding method replaces the method it overrides.
+          if (signatures.add(method.getName() + method.getParameterTypes()[0].getName())) {
+            method.setAccessible(true);
+            methods.add(method);
+          }
+        }
+      }
+    }
+    return methods;
+  }
+
+  /**
+   * Returns the class, all its superclasses, and all its interfaces, with subclasses before their supertypes.
+   */
+  private static Set<Class<?>> allSupertypes(Class<?> type) {
+    Set<Class<?>> types = new LinkedHashSet<>();
+    Queue<Class<?>> toVisit = new ArrayDeque<>();
+    toVisit.add(type);
+    while (!toVisit.isEmpty()) {
+      Class<?> next = toVisit.remove();
+      if (types.add(next)) {
+        final Class<?> superclass = next.getSuperclass();
+        if (superclass != null) {
+          toVisit.add(superclass);
+        }
+        toVisit.addAll(List.of(next.getInterfaces()));
+      }
+    }
+    return types;
+  }
+
+  // Posting
+
+  /**
+   * Post an event. In synchronous mode, this returns after every subscriber has been called, except for those that
+   * run on the Event Dispatch Thread and were posted from another thread. In asynchronous mode, it returns once the
+   * event is queued.
+   * @param event The event
+   */
+  void post(Object event) {
+    final EventBusStatistics stats = statistics;
+    if (stats != null) {
+      stats.eventPosted(event.getClass());
+    }
+    final Coalescer coalescer = coalescers.get(event.getClass());
+    if (coalescer == null) {
+      postNow(event);
+    } else {
+      coalescer.offer(event);
+    }
+  }
+
+  private void postNow(Object event) {
+    final AsyncQueue queue = asyncQueue;
+    if (queue == null) {
+      dispatch(event);
+    } else {
+      queue.enqueue(event);
+    }
+  }
+
+  /**
+   * Delivers the event to its subscribers on the current thread.
+   * @param event The event
+   */
+  void dispatch(Object event) {
+    DispatchState state = dispatchState.get();
+    state.pending.add(event);
+    if (state.dispatching) {
+      // We're inside a subscriber. The outer dispatch loop will get to this event.
+      return;
+    }
+    state.dispatching = true;
+    try {
+      drain(state);
+    } finally {
+      state.dispatching = false;
+      state.pending.clear(); // Only needed if a subscriber threw an Error.
+    }
+  }
+
+  /**
+   * Delivers a changed record to the record change handlers directly, then dispatches a {@link ChangeRecord} only if
+   * it has subscribers, or if no handler took the record, so it can be reported as a dead event. The handlers run as
+   * part of the dispatch, so anything they post waits until the {@code ChangeRecord} subscribers are done, just as it
+   * would if the handlers were subscribers. Only call this when {@link #wouldDispatchImmediately(Class)} returns true
+   * for {@code ChangeRecord}.
+   * @param channel The record change handlers
+   * @param record The changed record
+   */
+  void dispatchRecordChange(RecordChangeChannel channel, Object record) {
+    DispatchState state = dispatchState.get();
+    assert !state.dispatching;
+    state.dispatching = true;
+    try {
+      final boolean delivered = channel.deliver(record);
+      if (!delivered || hasSubscribers(ChangeRecord.class)) {
+        dispatchOne(new ChangeRecord<>(record));
+      }
+      drain(state);
+    } finally {
+      state.dispatching = false;
+      state.pending.clear(); // Only needed if a subscriber threw an Error.
+    }
+  }
+
+  private void drain(DispatchState state) {
+    Object next;
+    while ((next = state.pending.poll()) != null) {
+      dispatchOne(next);
+    }
+  }
+
+  private void dispatchOne(Object event) {
+    // A ChangeRecord that couldn't be delivered directly carries the record change handlers with it.
+    final boolean handled = (event instanceof ChangeRecord<?> changeRecord) && changeRecord.deliverToChannel();
+    final Subscriber[] subscribers = getSubscribers(event.getClass());
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < subscribers.length; ++i) {
+      subscribers[i].deliver(event);
+    }
+    if ((subscribers.length == 0) && !handled && !(event instanceof DeadEvent)) {
+      final EventBusStatistics stats = statistics;
+      if (stats != null) {
+        stats.deadEvent(event.getClass());
+      }
+      dispatchOne(new DeadEvent(this, event));
+    }
+  }
+
+  /**
+   * Returns true if an event of the specified class, posted now, would be dispatched right away on this thread: the
+   * dispatcher is synchronous and not instrumented, the class isn't coalesced, and this thread isn't already
+   * dispatching an event. In that case, delivering something directly, instead of posting it, doesn't change when or
+   * where it gets delivered.
+   * @param eventClass The exact class of the event
+   * @return true if a post would be dispatched immediately
+   */
+  boolean wouldDispatchImmediately(Class<?> eventClass) {
+    return (asyncQueue == null) && (statistics == null) && !coalescers.containsKey(eventClass)
+        && !dispatchState.get().dispatching;
+  }
+
+  private static final class DispatchState {
+    private final Queue<Object> pending = new ArrayDeque<>();
+    private boolean dispatching = false;
+  }
+
+  // Instrumentation
+
+  /**
+   * Start counting events and timing subscribers. If instrumentation is already on, this just returns the current
+   * statistics.
+   * @return The statistics
+   */
+  synchronized EventBusStatistics startInstrumentation() {
+    EventBusStatistics stats = statistics;
+    if (stats == null) {
+      stats = new EventBusStatistics();
+      for (List<Subscriber> subscribers : subscribersByType.values()) {
+        for (Subscriber subscriber : subscribers) {
+          subscriber.startTiming(stats);
+        }
+      }
+      statistics = stats;
+    }
+    return stats;
+  }
+
+  /**
+   * Stop counting events and timing subscribers.
+   */
+  synchronized void stopInstrumentation() {
+    statistics = null;
+    for (List<Subscriber> subscribers : subscribersByType.values()) {
+      for (Subscriber subscriber : subscribers) {
+        subscriber.stopTiming();
+      }
+    }
+  }
+
+  @Nullable EventBusStatistics getStatistics() { return statistics; }
+
+  // Coalescing
+
+  /**
+   * Coalesce events of the specified class. Subclasses aren't affected. Events that are waiting to be coalesced are
+   * delivered on the Event Dispatch Thread, through the asynchronous queue if asynchronous mode is on.
+   * @param eventClass The exact class of the events to coalesce
+   * @param windowMillis The length of time, in milliseconds, from the first event to the delivery of the latest one.
+   *                     If this is zero, delivery happens as soon as the Event Dispatch Thread has finished processing
+   *                     whatever it's working on now.
+   */
+  void coalesce(Class<?> eventClass, int windowMillis) {
+    if (windowMillis < 0) {
+      throw new IllegalArgumentException(String.format("windowMillis = %d", windowMillis));
+    }
+    Coalescer previous = coalescers.put(eventClass, new Coalescer(windowMillis));
+    if (previous != null) {
+      previous.flush();
+    }
+  }
+
+  /**
+   * Stop coalescing events of the specified class. If an event is waiting, it's posted now.
+   * @param eventClass The exact class of the events
+   */
+  void stopCoalescing(Class<?> eventClass) {
+    Coalescer previous = coalescers.remove(eventClass);
+    if (previous != null) {
+      previous.flush();
+    }
+  }
+
+  private final class Coalescer {
+    private final AtomicReference<@Nullable Object> latest = new AtomicReference<>();
+    private final @Nullable Timer timer;
+
+    Coalescer(int windowMillis) {
+      if (windowMillis == 0) {
+        timer = null;
+      } else {
+        timer = new Timer(windowMillis, e -> flush());
+        timer.setRepeats(false);
+      }
+    }
+
+    void offer(Object event) {
+      // Only the first event of a window schedules the flush. Later ones just replace the waiting event.
+      if (latest.getAndSet(event) == null) {
+        if (timer == null) {
+          SwingUtilities.invokeLater(this::flush);
+        } else {
+          timer.restart();
+        }
+      }
+    }
+
+    void flush() {
+      final Object event = latest.getAndSet(null);
+      if (event != null) {
+        postNow(event);
+      }
+    }
+  }
+
+  // Asynchronous mode
+
+  /**
+   * Switch to asynchronous mode.
+   * @param capacity The capacity of the queue
+   * @param threadCount The number of worker threads. With more than one, events may reach subscribers out of order.
+   * @param policy What to do when the queue is full
+   * @return the metrics for the queue
+   */
+  synchronized AsyncMetrics startAsync(int capacity, int threadCount, BackPressure policy) {
+    if (asyncQueue != null) {
+      throw new IllegalStateException("Already asynchronous");
+    }
+    if ((capacity < 1) || (threadCount < 1)) {
+      throw new IllegalArgumentException(String.format("capacity = %d, threadCount = %d", capacity, threadCount));
+    }
+    AsyncQueue queue = new AsyncQueue(capacity, threadCount, policy);
+    asyncQueue = queue;
+    return queue.metrics;
+  }
+
+  /**
+   * Return to synchronous mode. This waits for the worker threads to finish the events they're dispatching, then
+   * dispatches any events still on the queue on the calling thread, in order.
+   */
+  void stopAsync() {
+    final AsyncQueue queue;
+    // Don't wait for the workers while holding the lock. Their subscribers may need it to register handlers.
+    synchronized (this) {
+      queue = asyncQueue;
+      asyncQueue = null;
+    }
+    if (queue != null) {
+      queue.shutDown();
+    }
+  }
+
+  @Nullable AsyncMetrics getAsyncMetrics() {
+    final AsyncQueue queue = asyncQueue;
+    return (queue == null) ? null : queue.metrics;
+  }
+
+  private record QueuedEvent(Object event, long postNanos) { }
+
+  /**
+   * The queue for asynchronous mode. Once it's closed, nothing more is queued. A poster that finds the queue closed
+   * waits until the events already queued have been dispatched, then dispatches its own event on its own thread, so
+   * no event is lost or delivered ahead of older ones.
+   */
+  private final class AsyncQueue {
+    private final int capacity;
+    private final BackPressure policy;
+    private final AsyncMetrics metrics;
+    private final List<Thread> workers = new ArrayList<>();
+    private final CountDownLatch drained = new CountDownLatch(1);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // Guarded by lock
+    private final Queue<QueuedEvent> queue = new ArrayDeque<>();
+    private boolean closed = false;
+
+    AsyncQueue(int capacity, int threadCount, BackPressure policy) {
+      this.capacity = capacity;
+      this.policy = policy;
+      metrics = new AsyncMetrics(capacity, this::size);
+      for (int i = 0; i < threadCount; ++i) {
+        //noinspection HardCodedStringLiteral
+        Thread worker = new Thread(this::workLoop, String.format("EventDispatcher %s worker %d", identifier, i));
+        worker.setDaemon(true);
+        workers.add(worker);
+      }
+      workers.forEach(Thread::start);
+    }
+
+    private int size() {
+      lock.lock();
+      try {
+        return queue.size();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void enqueue(Object event) {
+      QueuedEvent queuedEvent = new QueuedEvent(event, System.nanoTime());
+      boolean runByCaller = false;
+      lock.lock();
+      try {
+        if (!closed && (queue.size() >= capacity)) {
+          switch (policy) {
+            case BLOCK -> {
+              try {
+                while (!closed && (queue.size() >= capacity)) {
+                  notFull.await();
+                }
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                metrics.eventDropped();
+                return;
+              }
+            }
+            case DROP_NEWEST -> {
+              metrics.eventDropped();
+              return;
+            }
+            case DROP_OLDEST -> {
+              queue.remove();
+              metrics.eventDropped();
+            }
+            case CALLER_RUNS -> runByCaller = true;
+          }
+        }
+        if (!closed && !runByCaller) {
+          queue.add(queuedEvent);
+          notEmpty.signal();
+          metrics.eventQueued();
+          return;
+        }
+      } finally {
+        lock.unlock();
+      }
+      if (!runByCaller) {
+        // We were shut down after the poster read asyncQueue. A worker can't wait, because shutDown() waits for it.
+        if (!workers.contains(Thread.currentThread())) {
+          awaitUninterruptibly(drained);
+        }
+      } else {
+        metrics.eventRunByCaller();
+      }
+      dispatch(event);
+    }
+
+    private void workLoop() {
+      while (true) {
+        final QueuedEvent next;
+        lock.lock();
+        try {
+          while (!closed && queue.isEmpty()) {
+            notEmpty.awaitUninterruptibly();
+          }
+          if (closed) {
+            return; // The remaining events get dispatched by shutDown().
+          }
+          next = queue.remove();
+          notFull.signal();
+        } finally {
+          lock.unlock();
+        }
+        metrics.eventDispatched(System.nanoTime() - next.postNanos());
+        try {
+          dispatch(next.event());
+        } catch (Throwable t) {
+          // Subscribers rethrow Errors. Nothing replaces a dead worker, so keep going, or the queue stops draining.
+          //noinspection HardCodedStringLiteral
+          logger.log(Level.SEVERE, String.format("Error dispatching event %s on %s", next.event(),
+              Thread.currentThread().getName()), t);
+        }
+      }
+    }
+
+    void shutDown() {
+      lock.lock();
+      try {
+        closed = true;
+        notEmpty.signalAll();
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      try {
+        // Let the workers finish what they're dispatching, so the remaining events don't overtake it.
+        for (Thread worker : workers) {
+          if (worker != Thread.currentThread()) {
+            joinUninterruptibly(worker);
+          }
+        }
+        QueuedEvent remaining;
+        while ((remaining = pollRemaining()) != null) {
+          dispatch(remaining.event());
+        }
+      } finally {
+        drained.countDown();
+      }
+    }
+
+    private @Nullable QueuedEvent pollRemaining() {
+      lock.lock();
+      try {
+        return queue.poll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void joinUninterruptibly(Thread thread) {
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Subscribers
+
+  private final class Subscriber {
+    private final Object target;
+    private final Method method;
+    private final boolean onEdt;
+    private final boolean threadSafe;
+    
+    /** The subscriber method, bound to its target, and adapted to take an Object and return void. */
+    private final MethodHandle invoker;
+    
+    private volatile EventBusStatistics.@Nullable SubscriberTimer timer = null;
+
+    Subscriber(Object target, Method method, boolean onEdt) {
+      this.target = target;
+      this.method = method;
+      this.onEdt = onEdt;
+      threadSafe = method.isAnnotationPresent(AllowConcurrentEvents.class);
+      try {
+        // The method was made accessible when it was found, so this class's lookup may unreflect it, even if it's private.
+        invoker = MethodHandles.lookup().unreflect(method).bindTo(target).asType(INVOKER_TYPE);
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException(String.format("Cannot access subscriber method %s", method), e);
+      }
+    }
+
+    void deliver(Object event) {
+      if (onEdt && !SwingUtilities.isEventDispatchThread()) {
+        SwingUtilities.invokeLater(() -> invoke(event));
+      } else {
+        invoke(event);
+      }
+    }
+
+    void startTiming(EventBusStatistics stats) {
+      timer = stats.createTimer(target.getClass().getName() + '.' + method.getName(), method.getParameterTypes()[0]);
+    }
+    
+    void stopTiming() {
+      timer = null;
+    }
+
+    private void invoke(Object event) {
+      final EventBusStatistics.SubscriberTimer subscriberTimer = timer;
+      if (subscriberTimer == null) {
+        invokeUntimed(event);
+      } else {
+        long start = System.nanoTime();
+        invokeUntimed(event);
+        subscriberTimer.record(System.nanoTime() - start);
+      }
+    }
+
+    private void invokeUntimed(Object event) {
+      try {
+        if (threadSafe) {
+          invoker.invokeExact(event);
+        } else {
+          synchronized (this) {
+            invoker.invokeExact(event);
+          }
+        }
+      } catch (Exception e) {
+        handleException(event, e);
+      } catch (Error e) {
+        // Errors get rethrown, the way they would from a direct method call.
+        throw e;
+      } catch (Throwable t) {
+        // A Throwable that's neither an Exception nor an Error gets handled like an Exception.
+        handleException(event, t);
+      }
+    }
+
+    // Two registrations of the same handler produce equal subscribers, so the second one can be ignored.
+    @Override
+    public boolean equals(Object obj) {
+      return (obj instanceof Subscriber other) && (target == other.target) && method.equals(other.method);
+    }
+
+    @Override
+    public int hashCode() {
+      return (31 * System.identityHashCode(target)) + method.hashCode();
+    }
+
+    private void handleException(Object event, Throwable exception) {
+      //noinspection HardCodedStringLiteral
+      logger.log(Level.SEVERE, String.format("Exception thrown by subscriber method %s(%s) on subscriber %s when dispatching event %s",
+          method.getName(), method.getParameterTypes()[0].getName(), target, event), exception);
+    }
+  }
+}
@@ -1,9 +1,15 @@
 package com.neptunedreams.framework.event;
 
+import java.lang.management.ManagementFactory;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
 import com.google.common.eventbus.DeadEvent;
-import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * This class serves as a facade for the event bus. The event bus instance is private, and all methods to post an event
@@ -13,7 +19,16 @@ import org.jetbrains.annotations.NotNull;
  * to be done by static methods, we make it possible to use multiple EventBuses in a project, each with its own 
  * set of post methods. This design guarantee that a message can't get posted to the wrong EventBus.
  * The only mistake that can get made is registering a class with the wrong event bus. Consequently, 
- * each facade class should also have a unique name for its register method.
+ * each facade class should also have a unique name for its register method. Additional facades may be generated from
+ * an event interface, rather than written by hand. See {@link EventBusFacade}.
+ * <p>
+ * Subscribers use Guava's {@code @Subscribe} annotation, and are called on the posting thread, unless they are also
+ * annotated with {@link DeliverOnEdt}, in which case they are always called on the Event Dispatch Thread. By default,
+ * events are delivered synchronously. Calling {@link #enableAsyncDispatch(int, int, BackPressure)} puts posted events on
+ * a bounded queue instead, to be delivered by worker threads, so posting from the Event Dispatch Thread returns right
+ * away.
+ * <p>
+ * To find out which subscribers are slowing things down, call {@link #enableInstrumentation()}.
  * <p>Created by IntelliJ IDEA.
  * <p>Date: 1/2/18
  * <p>Time: 12:38 AM
@@ -25,7 +40,13 @@ public final class MasterEventBus {
     master.register(this); // Register Dead Events.
   }
 
-  private static final EventBus master = new EventBus("master");
+  private static final Logger logger = Logger.getLogger(MasterEventBus.class.getName());
+  private static final EventDispatcher master = new EventDispatcher("master");
+  private static final RecordChangeChannel recordChangeChannel = new RecordChangeChannel();
+
+  /** The JMX name of the statistics, when instrumentation is on. */
+  @SuppressWarnings("HardCodedStringLiteral")
+  public static final String STATISTICS_MBEAN_NAME = "com.neptunedreams.framework.event:type=EventBusStatistics,name=master";
 
   /**
    * Register an instance with the master event bus
@@ -35,6 +56,112 @@ public final class MasterEventBus {
     master.register(eventHandlerInstance);
   }
 
+  /**
+   * Switch to asynchronous delivery. Posted events go onto a bounded queue, and are delivered by worker threads.
+   * Subscribers annotated with {@link DeliverOnEdt} are still delivered on the Event Dispatch Thread. This should be
+   * called once, when the application starts.
+   * @param queueCapacity The maximum number of events waiting to be delivered
+   * @param threadCount The number of worker threads. Use 1 unless subscribers don't care about the order of events.
+   *                    Either way, a subscriber isn't called on two threads at once unless it's annotated with
+   *                    {@code @AllowConcurrentEvents}.
+   * @param policy What to do when an event is posted and the queue is full
+   * @return The metrics for queue depth and dispatch latency
+   * @throws IllegalStateException if asynchronous delivery is already enabled
+   */
+  public static AsyncMetrics enableAsyncDispatch(int queueCapacity, int threadCount, BackPressure policy) {
+    return master.startAsync(queueCapacity, threadCount, policy);
+  }
+
+  /**
+   * Return to synchronous delivery. This waits for the worker threads to finish the events they're delivering. Events
+   * still on the queue are then delivered on the calling thread, in order, before this returns.
+   */
+  public static void disableAsyncDispatch() {
+    master.stopAsync();
+  }
+
+  /**
+   * Gets the metrics for asynchronous delivery.
+   * @return The metrics, or null if delivery is synchronous.
+   */
+  public static @Nullable AsyncMetrics getAsyncMetrics() {
+    return master.getAsyncMetrics();
+  }
+
+  /**
+   * Coalesce events of the specified type. When several are posted before the Event Dispatch Thread gets around to
+   * delivering them, only the latest one is delivered. This is useful for events like {@link LoadUIEvent} and 
+   * {@link ChangeRecord}, which may get posted many times during rapid navigation, but only the last one matters.
+   * The coalesced event is posted from the Event Dispatch Thread. In synchronous mode, that's where it's delivered.
+   * In asynchronous mode, it goes on the queue like any other event, and the worker threads deliver it.
+   * @param eventType The exact class of the event, such as {@code ChangeRecord.class}
+   */
+  public static void enableCoalescing(Class<?> eventType) {
+    master.coalesce(eventType, 0);
+  }
+
+  /**
+   * Coalesce events of the specified type over a time window. The first event starts the window, and when the window
+   * ends, the latest event posted during the window is posted from the Event Dispatch Thread, and delivered as
+   * described in {@link #enableCoalescing(Class)}.
+   * @param eventType The exact class of the event, such as {@code SearchNowEvent.class}
+   * @param windowMillis The length of the window, in milliseconds. Zero means the same as 
+   * {@link #enableCoalescing(Class)}.
+   */
+  public static void enableCoalescing(Class<?> eventType, int windowMillis) {
+    master.coalesce(eventType, windowMillis);
+  }
+
+  /**
+   * Stop coalescing events of the specified type. An event that's waiting is posted immediately.
+   * @param eventType The exact class of the event
+   */
+  public static void disableCoalescing(Class<?> eventType) {
+    master.stopCoalescing(eventType);
+  }
+
+  /**
+   * Start counting posted and dead events and timing subscribers. The statistics are also registered with the platform
+   * MBean server, under the name {@value #STATISTICS_MBEAN_NAME}. If instrumentation is already on, this returns the
+   * current statistics.
+   * @return The statistics, which may be read at any time.
+   */
+  public static synchronized EventBusStatistics enableInstrumentation() {
+    final EventBusStatistics existing = master.getStatistics();
+    if (existing != null) {
+      return existing;
+    }
+    EventBusStatistics statistics = master.startInstrumentation();
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, new ObjectName(STATISTICS_MBEAN_NAME));
+    } catch (JMException e) {
+      // The statistics still work without JMX.
+      //noinspection HardCodedStringLiteral
+      logger.log(Level.WARNING, "Unable to register " + STATISTICS_MBEAN_NAME, e);
+    }
+    return statistics;
+  }
+
+  /**
+   * Stop counting events and timing subscribers, and unregister the statistics from the MBean server.
+   */
+  public static synchronized void disableInstrumentation() {
+    if (master.getStatistics() != null) {
+      master.stopInstrumentation();
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(STATISTICS_MBEAN_NAME));
+      } catch (JMException ignored) { } // It was never registered.
+    }
+  }
+
+  /**
+   * Gets the statistics.
+   * @return The statistics, or null if instrumentation is off.
+   */
+  public static @Nullable EventBusStatistics getStatistics() {
+    return master.getStatistics();
+  }
+
   // Data-Free Events:
   private static final LoadUIEvent uiEvent = new LoadUIEvent();
   private static final SearchNowEvent searchNowEvent = new SearchNowEvent();
@@ -81,12 +208,41 @@ public final class MasterEventBus {
   }
 
   /**
-   * post a ChangeRecordEvent message
+   * Register a handler that receives changed records directly, rather than through a {@link ChangeRecord} event.
+   * Handlers are always called just before the {@code ChangeRecord} subscribers, on the same thread, and in the same
+   * order relative to other events. When the bus is synchronous, isn't instrumented and isn't coalescing
+   * {@code ChangeRecord}, and the post doesn't come from inside a subscriber, handlers are called directly, and
+   * delivering a record to them allocates nothing. Otherwise, the record travels with a {@code ChangeRecord} event,
+   * so it's queued, coalesced and counted like any other event. Either way, events posted by a handler are delivered
+   * after the {@code ChangeRecord} subscribers.
+   * @param recordType The class of the records the handler accepts
+   * @param handler The handler
+   * @param <R> The type of the record
+   */
+  public static <R> void registerRecordChangeHandler(Class<R> recordType, Consumer<? super R> handler) {
+    recordChangeChannel.register(recordType, handler);
+  }
+
+  /**
+   * post a ChangeRecordEvent message. The record goes to the handlers registered with 
+   * {@link #registerRecordChangeHandler(Class, Consumer)}. When they're called directly, a {@link ChangeRecord} event 
+   * is only created if there are {@code ChangeRecord} subscribers, or if no handler took the record, so it can be 
+   * reported as a dead event.
    * @param record The affected record
    * @param <R> The type of the record
    */
   public static <R> void postChangeRecordEvent(@NotNull R record) {
-    master.post(new ChangeRecord<>(record));
+    postChangeRecord(master, recordChangeChannel, record);
+  }
+
+  static <R> void postChangeRecord(EventDispatcher dispatcher, RecordChangeChannel channel, @NotNull R record) {
+    if (!channel.hasHandlers()) {
+      dispatcher.post(new ChangeRecord<>(record));
+    } else if (dispatcher.wouldDispatchImmediately(ChangeRecord.class)) {
+      dispatcher.dispatchRecordChange(channel, record);
+    } else {
+      dispatcher.post(new ChangeRecord<>(record, channel));
+    }
   }
 
   /**
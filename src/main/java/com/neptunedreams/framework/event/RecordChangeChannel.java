@@ -0,0 +1,79 @@
+package com.neptunedreams.framework.event;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Delivers changed records straight to registered handlers, without wrapping them in a {@link ChangeRecord} event.
+ * Handlers are kept in an array that gets replaced on registration, so delivery allocates nothing, and rapid
+ * keyboard navigation produces no garbage.
+ * <p>
+ * Handlers are called in the order they were registered. The channel doesn't decide when it gets called. 
+ * MasterEventBus either calls it directly, when that's the same as dispatching a {@link ChangeRecord} event right 
+ * away, or has the {@code ChangeRecord} event call it as it's dispatched.
+ *
+ * @author Miguel Muñoz
+ */
+final class RecordChangeChannel {
+  private static final Logger logger = Logger.getLogger(RecordChangeChannel.class.getName());
+  private static final Handler<?>[] NO_HANDLERS = new Handler<?>[0];
+
+  private volatile Handler<?>[] handlers = NO_HANDLERS;
+
+  /**
+   * Register a handler for changed records of the specified type.
+   * @param recordType The record class. Records of other classes aren't delivered to this handler.
+   * @param handler The handler
+   * @param <R> The record type
+   */
+  synchronized <R> void register(Class<R> recordType, Consumer<? super R> handler) {
+    Handler<?>[] newHandlers = Arrays.copyOf(handlers, handlers.length + 1);
+    newHandlers[handlers.length] = new Handler<>(recordType, handler);
+    handlers = newHandlers;
+  }
+
+  boolean hasHandlers() {
+    return handlers.length > 0;
+  }
+
+  /**
+   * Deliver the record to every handler registered for its type.
+   * @param record The changed record
+   * @return true if at least one handler received the record.
+   */
+  boolean deliver(@NotNull Object record) {
+    final Handler<?>[] currentHandlers = handlers;
+    boolean delivered = false;
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < currentHandlers.length; ++i) {
+      delivered |= currentHandlers[i].deliver(record);
+    }
+    return delivered;
+  }
+
+  private static final class Handler<R> {
+    private final Class<R> recordType;
+    private final Consumer<? super R> consumer;
+
+    Handler(Class<R> recordType, Consumer<? super R> consumer) {
+      this.recordType = recordType;
+      this.consumer = consumer;
+    }
+
+    boolean deliver(Object record) {
+      if (!recordType.isInstance(record)) {
+        return false;
+      }
+      try {
+        consumer.accept(recordType.cast(record));
+      } catch (RuntimeException e) {
+        //noinspection HardCodedStringLiteral
+        logger.log(Level.SEVERE, String.format("Exception thrown by record change handler %s for record %s", consumer, record), e);
+      }
+      return true;
+    }
+  }
+}
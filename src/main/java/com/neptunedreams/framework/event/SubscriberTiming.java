@@ -0,0 +1,81 @@
+package com.neptunedreams.framework.event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the time one subscriber method has spent handling events. Handling times are also sorted into a
+ * histogram, with bucket limits given by {@link #BUCKET_LIMITS_MICROS}. The last bucket counts everything slower than
+ * the last limit. On the Event Dispatch Thread, anything in the buckets above 16 milliseconds costs at least one frame.
+ *
+ * @author Miguel Muñoz
+ */
+@SuppressWarnings("WeakerAccess")
+public final class SubscriberTiming {
+  /** Upper limits, in microseconds, of every histogram bucket but the last. */
+  @SuppressWarnings("MagicNumber")
+  static final long[] BUCKET_LIMITS_MICROS = { 10, 100, 1_000, 4_000, 16_000, 50_000, 100_000, 500_000 };
+
+  private final String subscriber;
+  private final String eventType;
+  private final long count;
+  private final long totalNanos;
+  private final long maxNanos;
+  private final long[] histogram;
+
+  SubscriberTiming(String subscriber, String eventType, long count, long totalNanos, long maxNanos, long[] histogram) {
+    this.subscriber = subscriber;
+    this.eventType = eventType;
+    this.count = count;
+    this.totalNanos = totalNanos;
+    this.maxNanos = maxNanos;
+    this.histogram = histogram;
+  }
+
+  /**
+   * Gets the subscriber, as the name of its class and method.
+   * @return The subscriber
+   */
+  public String getSubscriber() { return subscriber; }
+
+  /**
+   * Gets the event type the subscriber method accepts.
+   * @return The name of the event class
+   */
+  public String getEventType() { return eventType; }
+
+  public long getCount() { return count; }
+
+  public long getTotalNanos() { return totalNanos; }
+
+  public long getMaxNanos() { return maxNanos; }
+
+  public long getAverageNanos() { return (count == 0) ? 0 : (totalNanos / count); }
+
+  /**
+   * Gets the histogram of handling times. It has one more bucket than {@link #getBucketLimitsMicros()} has limits.
+   * @return A copy of the histogram counts
+   */
+  public long[] getHistogram() { return histogram.clone(); }
+
+  /**
+   * Gets the upper limits of the histogram buckets.
+   * @return A copy of the bucket limits, in microseconds
+   */
+  public long[] getBucketLimitsMicros() { return BUCKET_LIMITS_MICROS.clone(); }
+
+  static int bucketFor(long nanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    int bucket = 0;
+    while ((bucket < BUCKET_LIMITS_MICROS.length) && (micros >= BUCKET_LIMITS_MICROS[bucket])) {
+      bucket++;
+    }
+    return bucket;
+  }
+
+  @Override
+  public String toString() {
+    //noinspection HardCodedStringLiteral
+    return String.format("%s(%s): %d calls, avg %.3f ms, max %.3f ms", subscriber, eventType, count,
+        getAverageNanos() / 1.0e6, maxNanos / 1.0e6);
+  }
+}
@@ -0,0 +1,207 @@
+package com.neptunedreams.framework.event.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import com.neptunedreams.framework.event.EventBusFacade;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Generates the event bus facade classes described by {@link EventBusFacade}. Each facade keeps its handlers in an
+ * array that gets replaced when a handler is registered or unregistered, so posting an event just walks the array
+ * and calls the interface method on each handler.
+ * <p>
+ * This processor is found through {@code META-INF/services}, so any project that has this library on its compile
+ * classpath runs it automatically.
+ *
+ * @author Miguel Muñoz
+ */
+@SupportedAnnotationTypes("com.neptunedreams.framework.event.EventBusFacade")
+public final class EventBusFacadeProcessor extends AbstractProcessor {
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(EventBusFacade.class)) {
+      if (element.getKind() != ElementKind.INTERFACE) {
+        error(element, "@EventBusFacade may only be applied to an interface");
+        continue;
+      }
+      TypeElement eventInterface = (TypeElement) element;
+      if (!eventInterface.getTypeParameters().isEmpty()) {
+        error(eventInterface, "An @EventBusFacade interface may not be generic");
+        continue;
+      }
+      List<ExecutableElement> events = findEvents(eventInterface);
+      if (events != null) {
+        writeFacade(eventInterface, events);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the event methods of the interface, including inherited ones. Static and private methods aren't events.
+   * @return The event methods, or null if any of them is invalid.
+   */
+  private @Nullable List<ExecutableElement> findEvents(TypeElement eventInterface) {
+    List<ExecutableElement> events = new ArrayList<>();
+    boolean valid = true;
+    for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(eventInterface))) {
+      final Set<Modifier> modifiers = method.getModifiers();
+      if ((method.getEnclosingElement().getKind() != ElementKind.INTERFACE)
+          || modifiers.contains(Modifier.STATIC)
+          || modifiers.contains(Modifier.PRIVATE)) {
+        continue; // Object's methods, static methods and private methods.
+      }
+      if (method.getReturnType().getKind() != TypeKind.VOID) {
+        error(method, "Event methods must return void");
+        valid = false;
+      } else if (!method.getTypeParameters().isEmpty()) {
+        error(method, "Event methods may not be generic");
+        valid = false;
+      } else if (throwsCheckedException(method)) {
+        error(method, "Event methods may not throw checked exceptions");
+        valid = false;
+      } else {
+        events.add(method);
+      }
+    }
+    return valid ? events : null;
+  }
+
+  private boolean throwsCheckedException(ExecutableElement method) {
+    final Types types = processingEnv.getTypeUtils();
+    final Elements elements = processingEnv.getElementUtils();
+    final TypeMirror runtimeException = elements.getTypeElement(RuntimeException.class.getName()).asType();
+    final TypeMirror error = elements.getTypeElement(Error.class.getName()).asType();
+    for (TypeMirror thrownType : method.getThrownTypes()) {
+      if (!types.isAssignable(thrownType, runtimeException) && !types.isAssignable(thrownType, error)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writeFacade(TypeElement eventInterface, List<ExecutableElement> events) {
+    final EventBusFacade annotation = eventInterface.getAnnotation(EventBusFacade.class);
+    final String interfaceName = eventInterface.getSimpleName().toString();
+    final String facadeName = annotation.value().isEmpty() ? (interfaceName + "Bus") : annotation.value();
+    final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(eventInterface);
+    final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    final String qualifiedName = packageName.isEmpty() ? facadeName : (packageName + '.' + facadeName);
+    final String interfaceType = eventInterface.getQualifiedName().toString();
+    final String visibility = eventInterface.getModifiers().contains(Modifier.PUBLIC) ? "public " : "";
+
+    try {
+      JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedName, eventInterface);
+      try (PrintWriter out = new PrintWriter(sourceFile.openWriter())) {
+        if (!packageName.isEmpty()) {
+          out.printf("package %s;%n%n", packageName);
+        }
+        out.printf("/**%n");
+        out.printf(" * Event bus facade for {@link %s}. Generated from the interface; do not edit.%n", interfaceType);
+        out.printf(" */%n");
+        out.printf("@javax.annotation.processing.Generated(\"%s\")%n", EventBusFacadeProcessor.class.getName());
+        out.printf("%sfinal class %s {%n", visibility, facadeName);
+        out.printf("  private static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(%s.class.getName());%n", facadeName);
+        out.printf("  private static final %s[] NO_HANDLERS = new %s[0];%n", interfaceType, interfaceType);
+        out.printf("  private static volatile %s[] handlers = NO_HANDLERS;%n%n", interfaceType);
+        out.printf("  private %s() { }%n%n", facadeName);
+
+        out.printf("  /**%n   * Register a handler with the %s.%n   * @param handler The handler%n   */%n", facadeName);
+        out.printf("  public static synchronized void register%sHandler(%s handler) {%n", facadeName, interfaceType);
+        out.printf("    %s[] newHandlers = java.util.Arrays.copyOf(handlers, handlers.length + 1);%n", interfaceType);
+        out.printf("    newHandlers[handlers.length] = java.util.Objects.requireNonNull(handler);%n");
+        out.printf("    handlers = newHandlers;%n");
+        out.printf("  }%n%n");
+
+        out.printf("  /**%n   * Unregister a handler from the %s.%n   * @param handler The handler%n   */%n", facadeName);
+        out.printf("  public static synchronized void unregister%sHandler(%s handler) {%n", facadeName, interfaceType);
+        out.printf("    java.util.List<%s> remaining = new java.util.ArrayList<>(java.util.Arrays.asList(handlers));%n", interfaceType);
+        out.printf("    if (remaining.remove(handler)) {%n");
+        out.printf("      handlers = remaining.toArray(NO_HANDLERS);%n");
+        out.printf("    }%n");
+        out.printf("  }%n");
+
+        for (ExecutableElement event : events) {
+          writePostMethod(out, interfaceType, event);
+        }
+        out.printf("}%n");
+      }
+    } catch (IOException e) {
+      error(eventInterface, "Unable to write " + qualifiedName + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes the post method for an event. The parameters are named {@code arg0}, {@code arg1}, and so on, rather than
+   * using the names from the interface, so they can't clash with the method's local variables or hide the facade's
+   * static fields.
+   */
+  private static void writePostMethod(PrintWriter out, String interfaceType, ExecutableElement event) {
+    final String eventName = event.getSimpleName().toString();
+    final List<? extends VariableElement> parameters = event.getParameters();
+    StringBuilder declaration = new StringBuilder();
+    StringBuilder arguments = new StringBuilder();
+    for (int i = 0; i < parameters.size(); ++i) {
+      if (i > 0) {
+        declaration.append(", ");
+        arguments.append(", ");
+      }
+      TypeMirror type = parameters.get(i).asType();
+      if (event.isVarArgs() && (i == (parameters.size() - 1))) {
+        declaration.append(((ArrayType) type).getComponentType()).append("...");
+      } else {
+        declaration.append(type);
+      }
+      declaration.append(" arg").append(i);
+      arguments.append("arg").append(i);
+    }
+
+    out.printf("%n  /**%n   * Post the {@link %s#%s} event to every handler.%n   */%n", interfaceType, eventName);
+    out.printf("  public static void post%s(%s) {%n", capitalize(eventName), declaration);
+    out.printf("    final %s[] currentHandlers = handlers;%n", interfaceType);
+    out.printf("    for (int i = 0; i < currentHandlers.length; ++i) {%n");
+    out.printf("      try {%n");
+    out.printf("        currentHandlers[i].%s(%s);%n", eventName, arguments);
+    out.printf("      } catch (RuntimeException e) {%n");
+    out.printf("        logger.log(java.util.logging.Level.SEVERE, \"Exception thrown by \" + currentHandlers[i] + \" handling %s\", e);%n", eventName);
+    out.printf("      }%n");
+    out.printf("    }%n");
+    out.printf("  }%n");
+  }
+
+  private static String capitalize(String name) {
+    return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
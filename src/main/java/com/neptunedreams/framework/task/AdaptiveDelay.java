@@ -0,0 +1,152 @@
+package com.neptunedreams.framework.task;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the delay used by a {@link QueuedTask} in adaptive mode. It keeps running averages of two things: how long
+ * the task takes to execute, and how long the user waits between one input and the next. When the task is cheap
+ * compared to the user's typing speed, the delay shrinks toward the minimum, so results show up almost immediately.
+ * When the task is expensive, the delay stretches toward a little more than the typical gap between keystrokes, so
+ * we don't launch a costly search in the middle of a word. The delay never leaves the range set by the minimum and
+ * maximum.
+ * <p>
+ * Averages are exponentially weighted, so recent behavior counts for more than old behavior. Input gaps longer than
+ * the maximum delay are treated as pauses, not typing, and are ignored.
+ * <p>
+ * All methods are thread-safe. Inputs are recorded on whatever thread calls {@link QueuedTask#feedData(Object)}, and
+ * call times are recorded on the QueuedTask's launch thread.
+ *
+ * @author Miguel Muñoz
+ */
+@SuppressWarnings("WeakerAccess")
+public final class AdaptiveDelay {
+  /** Weight given to each new sample in the running averages. */
+  private static final double SMOOTHING = 0.25;
+
+  /** How much longer than the average keystroke gap we wait when the task is expensive. */
+  private static final double TYPING_MARGIN = 1.5;
+
+  private final long minDelayMillis;
+  private final long maxDelayMillis;
+
+  private double averageCallMillis;
+  private double averageInputGapMillis;
+  private long callCount;
+  private long inputCount;
+  private long lastInputNanos;
+  private boolean hasInput = false;
+  private long currentDelayMillis;
+
+  /**
+   * Construct an AdaptiveDelay
+   * @param minDelayMillis The shortest delay allowed, in milliseconds
+   * @param maxDelayMillis The longest delay allowed, in milliseconds. This is also the starting delay, so we start out
+   *                       cautiously, until we know how expensive the task is.
+   */
+  public AdaptiveDelay(long minDelayMillis, long maxDelayMillis) {
+    if ((minDelayMillis < 0) || (maxDelayMillis < minDelayMillis)) {
+      throw new IllegalArgumentException(String.format("Bad delay range: %d to %d", minDelayMillis, maxDelayMillis));
+    }
+    this.minDelayMillis = minDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    averageInputGapMillis = maxDelayMillis / TYPING_MARGIN;
+    currentDelayMillis = maxDelayMillis;
+  }
+
+  /**
+   * Record the arrival of a new input, using the current time.
+   */
+  void inputReceived() {
+    recordInputTime(System.nanoTime());
+  }
+
+  synchronized void recordInputTime(long nanoTime) {
+    if (hasInput) {
+      recordInputGap(TimeUnit.NANOSECONDS.toMillis(nanoTime - lastInputNanos));
+    }
+    hasInput = true;
+    lastInputNanos = nanoTime;
+  }
+
+  /**
+   * Record the time between two consecutive inputs. Gaps longer than the maximum delay mean the user paused, so they
+   * don't tell us anything about typing speed and are ignored.
+   * @param gapMillis The time between inputs, in milliseconds
+   */
+  synchronized void recordInputGap(long gapMillis) {
+    if (gapMillis <= maxDelayMillis) {
+      averageInputGapMillis = smooth(averageInputGapMillis, gapMillis, inputCount);
+      inputCount++;
+      recalculate();
+    }
+  }
+
+  /**
+   * Record how long a single execution of the task took.
+   * @param callMillis The execution time, in milliseconds
+   */
+  synchronized void recordCallTime(long callMillis) {
+    averageCallMillis = smooth(averageCallMillis, callMillis, callCount);
+    callCount++;
+    recalculate();
+  }
+
+  private static double smooth(double average, long sample, long priorCount) {
+    // The first sample replaces the initial guess entirely.
+    return (priorCount == 0) ? sample : (average + (SMOOTHING * (sample - average)));
+  }
+
+  private void recalculate() {
+    if (callCount == 0) {
+      // Until we know how long the task takes, keep the cautious starting delay.
+      return;
+    }
+    double typingDelay = averageInputGapMillis * TYPING_MARGIN;
+
+    // costRatio is near zero for cheap tasks and reaches 1.0 when a task takes as long as a keystroke gap.
+    double costRatio = Math.min(1.0, averageCallMillis / Math.max(1.0, averageInputGapMillis));
+    double delay = minDelayMillis + (costRatio * (typingDelay - minDelayMillis));
+    currentDelayMillis = Math.max(minDelayMillis, Math.min(maxDelayMillis, Math.round(delay)));
+  }
+
+  /**
+   * Gets the delay the QueuedTask should use for its next wait.
+   * @return The current delay, in milliseconds
+   */
+  public synchronized long getDelayMillis() { return currentDelayMillis; }
+
+  public long getMinDelayMillis() { return minDelayMillis; }
+
+  public long getMaxDelayMillis() { return maxDelayMillis; }
+
+  /**
+   * Gets the running average of the task's execution time.
+   * @return the average execution time, in milliseconds, or zero if the task hasn't run yet
+   */
+  public synchronized double getAverageCallMillis() { return averageCallMillis; }
+
+  /**
+   * Gets the running average of the time between inputs, ignoring pauses.
+   * @return the average time between inputs, in milliseconds
+   */
+  public synchronized double getAverageInputGapMillis() { return averageInputGapMillis; }
+
+  /**
+   * Gets the number of times the task has been executed.
+   * @return the number of executions
+   */
+  public synchronized long getCallCount() { return callCount; }
+
+  /**
+   * Gets the number of input gaps that counted toward the typing speed.
+   * @return the number of recorded input gaps
+   */
+  public synchronized long getInputGapCount() { return inputCount; }
+
+  @Override
+  public synchronized String toString() {
+    //noinspection HardCodedStringLiteral
+    return String.format("AdaptiveDelay[delay=%d ms (%d-%d), avgCall=%.1f ms over %d, avgGap=%.1f ms over %d]",
+        currentDelayMillis, minDelayMillis, maxDelayMillis, averageCallMillis, callCount, averageInputGapMillis, inputCount);
+  }
+}
@@ -2,7 +2,7 @@ package com.neptunedreams.framework.task;
 
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.AbstractQueuedLongSynchronizer;
 
 /**
  * This class is a modified version of the CountDownLatch class. It's 
@@ -11,8 +11,16 @@ import java.util.concurrent.locks.AbstractQueuedSynchronizer;
  * instantiating a new latch while another Thread may be about to hit the old
  * latch.
  * <p>
- * It hasn't been tested thoroughly in the case where reset is called 
- * when it hasn't expired yet, because I'm not yet using it that way.
+ * <b>Generations:</b> Each call to {@link #reset reset()} starts a new
+ * <em>generation</em> of the door. A thread that calls {@link #await await}
+ * is bound to the generation that was current when it arrived. It gets
+ * released when that generation's count reaches zero, or when that generation
+ * ends because the door was reset, whichever comes first. So a reset while
+ * threads are still waiting releases them, rather than making them wait for
+ * the new generation's count. Threads that arrive after the reset wait for
+ * the new generation. Similarly, {@link #countDown(int)} only counts down
+ * if the generation it's given is still current, so a late countdown from an
+ * old generation can't be mistaken for one from the new generation.
  * <p>
  * A synchronization aid that allows one or more threads to wait until
  * a set of operations being performed in other threads completes.
@@ -22,8 +30,7 @@ import java.util.concurrent.locks.AbstractQueuedSynchronizer;
  * zero due to invocations of the {@link #countDown} method, after which
  * all waiting threads are released and any subsequent invocations of
  * {@link #await await} return immediately.  This is a one-shot phenomenon
- * -- the count cannot be reset.  If you need a version that resets the
- * count, consider using a {@link CyclicBarrier}.
+ * until the door is {@linkplain #reset reset}.
  * <p>
  * A {@code CountDownDoor} is a versatile synchronization tool
  * and can be used for a number of purposes.  A
@@ -129,10 +136,21 @@ import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 public class CountDownDoor {
   /**
    * Synchronization control For CountDownDoor.
-   * Uses AQS state to represent count.
+   * Uses AQS state to represent the generation, in the upper 32 bits, and the count, in the lower 32 bits. The
+   * acquire argument is the generation the waiting thread arrived in.
    */
-  private static final class Sync extends AbstractQueuedSynchronizer {
-    private static final long serialVersionUID = 4982264981922014374L;
+  private static final class Sync extends AbstractQueuedLongSynchronizer {
+    private static final long serialVersionUID = -2413547938413582591L;
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+    
+    /** Release argument for a countDown. */
+    private static final long COUNT_DOWN = 1L;
+    
+    /** Release argument that wakes the waiting threads after the count has already been changed. */
+    private static final long SIGNAL = 0L;
+    
+    /** Release arguments at or above this value are a reset to count (arg - RESET). */
+    private static final long RESET = 1L << 32;
 
     Sync(int count) {
       super();
@@ -140,31 +158,92 @@ public class CountDownDoor {
     }
 
     int getCount() {
-      return getState();
+      return countOf(getState());
+    }
+    
+    int getGeneration() {
+      return generationOf(getState());
+    }
+
+    private static int countOf(long state) { return (int) (state & COUNT_MASK); }
+
+    private static int generationOf(long state) { return (int) (state >>> 32); }
+    
+    private static long stateOf(int generation, int count) {
+      return (((long) generation) << 32) | (count & COUNT_MASK);
     }
 
     @Override
-    protected int tryAcquireShared(int acquires) {
-      return (getState() == 0) ? 1 : -1;
+    protected long tryAcquireShared(long arrivalGeneration) {
+      long state = getState();
+      
+      // Pass if this generation's count reached zero, or if this generation is over.
+      return ((countOf(state) == 0) || (generationOf(state) != (int) arrivalGeneration)) ? 1 : -1;
     }
 
     @Override
-    protected boolean tryReleaseShared(int releases) {
+    protected boolean tryReleaseShared(long releases) {
+      if (releases >= RESET) {
+        return reOpen((int) (releases - RESET));
+      }
+      if (releases == SIGNAL) {
+        return true;
+      }
       // Decrement count; signal when transition to zero
       while (true) {
-        int c = getState();
-        if (c == 0) {
+        long c = getState();
+        int count = countOf(c);
+        if (count == 0) {
           return false;
         }
-        int nextC = c - 1;
+        long nextC = stateOf(generationOf(c), count - 1);
         if (compareAndSetState(c, nextC)) {
-          return nextC == 0;
+          return count == 1;
         }
       }
     }
     
-    void reOpen(int count) {
-      setState(count);
+    void countDown() {
+      releaseShared(COUNT_DOWN);
+    }
+    
+    private boolean reOpen(int count) {
+      while (true) {
+        long c = getState();
+        if (compareAndSetState(c, stateOf(generationOf(c) + 1, count))) {
+          // Every waiting thread arrived in an earlier generation, which has now ended, so they may all pass.
+          return true;
+        }
+      }
+    }
+    
+    /**
+     * Starts a new generation with the specified count, and releases the threads waiting on the old one.
+     * @param count the new count
+     */
+    void reset(int count) {
+      releaseShared(RESET + count);
+    }
+
+    /**
+     * Decrements the count only if the specified generation is current.
+     * @param generation the generation to count down
+     * @return true if the count was decremented
+     */
+    boolean countDown(int generation) {
+      while (true) {
+        long c = getState();
+        if ((generationOf(c) != generation) || (countOf(c) == 0)) {
+          return false;
+        }
+        if (compareAndSetState(c, stateOf(generation, countOf(c) - 1))) {
+          if (countOf(c) == 1) {
+            // Count reached zero, so wake the waiters.
+            releaseShared(SIGNAL);
+          }
+          return true;
+        }
+      }
     }
   }
 
@@ -190,10 +269,12 @@ public class CountDownDoor {
    * <p>If the current count is zero then this method returns immediately.
    * <p>If the current count is greater than zero then the current
    * thread becomes disabled for thread scheduling purposes and lies
-   * dormant until one of two things happen:
+   * dormant until one of three things happen:
    * <ul>
    * <li>The count reaches zero due to invocations of the
    * {@link #countDown} method; or
+   * <li>The door is {@linkplain #reset reset}, ending the generation
+   * the current thread arrived in; or
    * <li>Some other thread {@linkplain Thread#interrupt interrupts}
    * the current thread.
    * </ul>
@@ -209,7 +290,18 @@ public class CountDownDoor {
    *                              while waiting
    */
   public void await() throws InterruptedException {
-    sync.acquireSharedInterruptibly(1);
+    sync.acquireSharedInterruptibly(sync.getGeneration());
+  }
+
+  /**
+   * Causes the current thread to wait until the latch has counted down to
+   * zero, or the generation the current thread arrived in has ended. This
+   * is the same as {@link #await()}, except that interrupts are ignored.
+   * If the thread is interrupted while waiting, it continues to wait, and
+   * its interrupted status is set when this method returns.
+   */
+  public void awaitUninterruptibly() {
+    sync.acquireShared(sync.getGeneration());
   }
 
   /**
@@ -224,12 +316,14 @@ public class CountDownDoor {
    * <ul>
    * <li>The count reaches zero due to invocations of the
    * {@link #countDown} method; or
+   * <li>The door is {@linkplain #reset reset}, ending the generation
+   * the current thread arrived in; or
    * <li>Some other thread {@linkplain Thread#interrupt interrupts}
    * the current thread; or
    * <li>The specified waiting time elapses.
    * </ul>
-   * <p>If the count reaches zero then the method returns with the
-   * value {@code true}.
+   * <p>If the count reaches zero, or the generation ends, then the method
+   * returns with the value {@code true}.
    * <p>If the current thread:
    * <ul>
    * <li>has its interrupted status set on entry to this method; or
@@ -243,14 +337,14 @@ public class CountDownDoor {
    *
    * @param timeout the maximum time to wait
    * @param unit    the time unit of the {@code timeout} argument
-   * @return {@code true} if the count reached zero and {@code false}
-   * if the waiting time elapsed before the count reached zero
+   * @return {@code true} if the count reached zero or the generation ended,
+   * and {@code false} if the waiting time elapsed first
    * @throws InterruptedException if the current thread is interrupted
    *                              while waiting
    */
   public boolean await(long timeout, TimeUnit unit)
       throws InterruptedException {
-    return sync.tryAcquireSharedNanos(1, unit.toNanos(timeout));
+    return sync.tryAcquireSharedNanos(sync.getGeneration(), unit.toNanos(timeout));
   }
 
   /**
@@ -262,7 +356,31 @@ public class CountDownDoor {
    * <p>If the current count equals zero then nothing happens.
    */
   public void countDown() {
-    sync.releaseShared(1);
+    sync.countDown();
+  }
+
+  /**
+   * Decrements the count of the latch, but only if the specified generation
+   * is still the current one. This lets a thread that was working on behalf
+   * of one generation avoid counting down a later generation.
+   *
+   * @param generation the generation to count down, as returned by
+   *                   {@link #getGeneration()}
+   * @return true if the count was decremented, false if the generation has
+   * ended or its count was already zero
+   */
+  public boolean countDown(int generation) {
+    return sync.countDown(generation);
+  }
+
+  /**
+   * Returns the current generation. The generation starts at zero and
+   * increases by one with every call to {@link #reset reset()}.
+   *
+   * @return the current generation
+   */
+  public int getGeneration() {
+    return sync.getGeneration();
   }
 
   /**
@@ -278,22 +396,29 @@ public class CountDownDoor {
   /**
    * Returns a string identifying this latch, as well as its state.
    * The state, in brackets, includes the String {@code "Count ="}
-   * followed by the current count.
+   * followed by the current count, and the String {@code "Generation ="}
+   * followed by the current generation.
    *
    * @return a string identifying this latch, as well as its state
    */
   public String toString() {
     //noinspection StringConcatenation,HardCodedStringLiteral,MagicCharacter
-    return super.toString() + "[Count = " + sync.getCount() + ']';
+    return super.toString() + "[Count = " + sync.getCount() + ", Generation = " + sync.getGeneration() + ']';
   }
 
   /**
    * This "closes" the door, allowing it to resume blocking a thread. In spite of the metaphor of a door opening and
    * closing, I hesitate to use the name "close()" for this method, since it has another meaning in so many other 
    * classes, so I call it reset() instead. 
+   * <p>This starts a new generation. Any threads still waiting on the old
+   * generation are released, whether or not its count reached zero.
    * @param count The door's count, which also gets set by the constructor.
+   * @throws IllegalArgumentException if {@code count} is negative
    */
   public void reset(int count) {
-    sync.reOpen(count);
+    if (count < 0) {
+      throw new IllegalArgumentException("count < 0");
+    }
+    sync.reset(count);
   }
 }
@@ -1,8 +1,14 @@
 package com.neptunedreams.framework.task;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.jetbrains.annotations.Nullable;
 
 /**
+ * A task that takes its input from a hand-off slot. The input may be set on one thread and taken on another, so the 
+ * slot is an AtomicReference. A thread that takes the input with {@link #takeInputData()} is the only one that will
+ * ever see it, so no input is processed twice. A thread that replaces the input with {@link #exchangeInputData(Object)}
+ * learns whether it replaced an input that was never taken, so newer inputs can supersede older ones without locks.
  * <p>Created by IntelliJ IDEA.
  * <p>Date: 11/5/17
  * <p>Time: 12:50 AM
@@ -12,18 +18,38 @@ import org.jetbrains.annotations.Nullable;
  * @param <R> ResultType
  */
 public abstract class ParameterizedCallable<I, R> {
-  private @Nullable I inputData;
+  private final AtomicReference<@Nullable I> inputData;
   protected ParameterizedCallable(@Nullable I initialValue) {
-    inputData = initialValue;
+    inputData = new AtomicReference<>(initialValue);
   }
 
   @SuppressWarnings("WeakerAccess")
   public void setInputData(@Nullable I input) {
-    inputData = input;
+    inputData.set(input);
   }
 
   @SuppressWarnings("WeakerAccess")
-  protected @Nullable I getInputData() { return inputData; }
+  protected @Nullable I getInputData() { return inputData.get(); }
+
+  /**
+   * Atomically replaces the input data, returning the input it replaced. If the returned value is not null, it was
+   * never taken, and has now been superseded by the new input.
+   * @param input The new input data
+   * @return The previous input data, or null if there was none waiting.
+   */
+  @SuppressWarnings("WeakerAccess")
+  public @Nullable I exchangeInputData(@Nullable I input) {
+    return inputData.getAndSet(input);
+  }
+
+  /**
+   * Atomically takes the input data, leaving null in its place. Only one thread can take any given input.
+   * @return The input data, or null if there is none waiting.
+   */
+  @SuppressWarnings("WeakerAccess")
+  public @Nullable I takeInputData() {
+    return inputData.getAndSet(null);
+  }
 
   public abstract R call(I input);
 }
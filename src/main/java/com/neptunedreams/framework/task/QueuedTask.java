@@ -2,6 +2,8 @@ package com.neptunedreams.framework.task;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 import org.jetbrains.annotations.NotNull;
@@ -29,6 +31,10 @@ import org.jetbrains.annotations.Nullable;
  * This should always be done when using interrupt to cancel a Thread. But in this case I keep my Threads running. And
  * the code in each Thread is so simple that I know there are no other methods up in the call stack that also need to
  * see the interrupt.
+ * <p>
+ * In adaptive mode, created with {@link #QueuedTask(AdaptiveDelay, ParameterizedCallable, Consumer)}, the delay
+ * isn't fixed. It gets adjusted after every input and every call, based on how long the task takes and how fast the 
+ * user types. See {@link AdaptiveDelay} for details.
  * <p>Created by IntelliJ IDEA.
  * <p>Date: 11/5/17
  * <p>Time: 12:02 AM
@@ -40,8 +46,10 @@ import org.jetbrains.annotations.Nullable;
 public final class QueuedTask<I extends @NotNull Object, R> {
   private final ParameterizedCallable<I, R> callable;
   private final long delayMilliSeconds;
+  private final @Nullable AdaptiveDelay adaptiveDelay;
   private final Consumer<R> consumer;
   private final BlockingQueue<I> queue = new SynchronousQueue<>();
+  private final LongAdder supersededCount = new LongAdder();
 
   /**
    * Construct a QueuedTask
@@ -52,6 +60,20 @@ public final class QueuedTask<I extends @NotNull Object, R> {
 //  @SuppressWarnings("BoundedWildcard") // The "bounds" expected by this inspection both ? extends R and ? super R
   public QueuedTask(long delay_ms, ParameterizedCallable<I, R> task, Consumer<R> theConsumer) {
     delayMilliSeconds = delay_ms;
+    adaptiveDelay = null;
+    callable = task;
+    consumer = theConsumer;
+  }
+
+  /**
+   * Construct a QueuedTask that adapts its delay to the cost of the task and the speed of the user's typing.
+   * @param delay Computes the delay, and collects the statistics used to compute it
+   * @param task The task to perform when the timer times out
+   * @param theConsumer Consumes the result of {@code task}
+   */
+  public QueuedTask(AdaptiveDelay delay, ParameterizedCallable<I, R> task, Consumer<R> theConsumer) {
+    delayMilliSeconds = delay.getMaxDelayMillis();
+    adaptiveDelay = delay;
     callable = task;
     consumer = theConsumer;
   }
@@ -65,8 +87,29 @@ public final class QueuedTask<I extends @NotNull Object, R> {
     waitThread.start();
   }
 
+  /**
+   * Gets the delay. In adaptive mode, this is the delay that will be used for the next wait.
+   * @return The delay, in milliseconds
+   */
   public long getDelayMilliSeconds() {
-    return delayMilliSeconds;
+    return (adaptiveDelay == null) ? delayMilliSeconds : adaptiveDelay.getDelayMillis();
+  }
+
+  /**
+   * Gets the AdaptiveDelay, which exposes the statistics used to choose the delay.
+   * @return The AdaptiveDelay, or null if this task uses a fixed delay.
+   */
+  public @Nullable AdaptiveDelay getAdaptiveDelay() {
+    return adaptiveDelay;
+  }
+
+  /**
+   * Gets the number of inputs that were replaced by a newer input before the task got to them. Each of these is a call
+   * to the task that was saved by waiting.
+   * @return The number of superseded inputs
+   */
+  public long getSupersededInputCount() {
+    return supersededCount.sum();
   }
 
   // External Thread Code
@@ -78,6 +121,9 @@ public final class QueuedTask<I extends @NotNull Object, R> {
    * @param data the data to process.
    */
   public void feedData(I data) {
+    if (adaptiveDelay != null) {
+      adaptiveDelay.inputReceived();
+    }
     try {
       queue.put(data); // SynchronousQueue.add() should never get called. Unnecessary and causes big problems.
     } catch (InterruptedException ignored) { }
@@ -103,7 +149,10 @@ public final class QueuedTask<I extends @NotNull Object, R> {
       try {
         I input = queue.take(); // Interruptable
         // Launch the code on the Launch Thread by setting valid input data and interrupting the launchThread.
-        callable.setInputData(input);
+        // Any earlier input that the launch thread hasn't taken yet is superseded by this one.
+        if (callable.exchangeInputData(input) != null) {
+          supersededCount.increment();
+        }
         launchThread.interrupt();
       } catch (InterruptedException ignored) { }
     }
@@ -117,7 +166,7 @@ public final class QueuedTask<I extends @NotNull Object, R> {
       // This try block gets interrupted whenever feedData() is called.
       try {
         //noinspection BusyWait
-        Thread.sleep(delayMilliSeconds);
+        Thread.sleep(getDelayMilliSeconds());
         launchCallable();
       } catch (InterruptedException ignored) { }
     }
@@ -127,11 +176,18 @@ public final class QueuedTask<I extends @NotNull Object, R> {
    * Skip the queuing and waiting and just launch the task immediately.
    */
   private void launchCallable() {
-    final @Nullable I inputData = callable.getInputData();
+    // Taking the input atomically guarantees that each input gets processed at most once.
+    final @Nullable I inputData = callable.takeInputData();
     if (inputData != null) {
-      callable.setInputData(null);
-      R result = callable.call(inputData);
-      consumer.accept(result);
+      if (adaptiveDelay == null) {
+        R result = callable.call(inputData);
+        consumer.accept(result);
+      } else {
+        long start = System.nanoTime();
+        R result = callable.call(inputData);
+        adaptiveDelay.recordCallTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        consumer.accept(result);
+      }
     }
   }
 }
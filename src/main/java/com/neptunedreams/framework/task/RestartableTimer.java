@@ -1,11 +1,26 @@
 package com.neptunedreams.framework.task;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Run an operation a single time after a preset interval, with the option of restarting the clock at any time.
- * Once the operation is performed, the timer does not restart until the restart() method is called. It may be called at 
+ * Once the operation is performed, the timer does not restart until the restart() method is called. It may be called at
  * any time. This was created to implement an auto-save feature, but it may be used elsewhere.
+ * <p>
+ * All RestartableTimers share a single daemon scheduler Thread, so an application may create as many as it needs.
+ * The scheduler only keeps time. When a timer fires, its operation is handed to a pool of daemon threads, so a slow
+ * operation, like a database save, doesn't delay any other timer. Restarting the clock cancels the pending operation
+ * and schedules a new one. Each scheduled operation carries a token, and it only runs if its token is still the
+ * latest one, so an operation that was already on its way to running when the clock got restarted is quietly dropped.
+ * A timer never runs its operation on two threads at once. If it fires again while the operation is still running,
+ * the next run waits for the current one to finish, and it's dropped if the clock gets restarted or stopped while it
+ * waits.
  * <p>Created by IntelliJ IDEA.
  * <p>Date: 6/19/20
  * <p>Time: 1:20 AM
@@ -13,7 +28,18 @@ import java.util.concurrent.CountDownLatch;
  * @author Miguel Muñoz
  */
 public final class RestartableTimer {
-  private final Thread restartableThread;
+  private static final ScheduledThreadPoolExecutor scheduler = createScheduler();
+  private static final Executor defaultOperationExecutor = createOperationExecutor();
+
+  private final long triggerTimeMillis;
+  private final Runnable operation;
+  private final Executor operationExecutor;
+  private final Object runLock = new Object();
+
+  // All access to these three fields is synchronized on this.
+  private long token = 0L;
+  private boolean started = false;
+  private @Nullable ScheduledFuture<?> pending = null;
 
   /**
    * Construct a RestartableTimer using the specified delay time, and performing the specified operation.
@@ -21,54 +47,98 @@ public final class RestartableTimer {
    * @param operation The operation
    */
   public RestartableTimer(long triggerTimeMillis, Runnable operation) {
-    restartableThread = new Thread(new Task(triggerTimeMillis, operation), "RestartableTimer Thread");
+    this(triggerTimeMillis, operation, defaultOperationExecutor);
+  }
+
+  /**
+   * For testing, so tests may decide when a fired operation runs.
+   */
+  RestartableTimer(long triggerTimeMillis, Runnable operation, Executor operationExecutor) {
+    this.triggerTimeMillis = triggerTimeMillis;
+    this.operation = operation;
+    this.operationExecutor = operationExecutor;
+  }
+
+  private static ScheduledThreadPoolExecutor createScheduler() {
+    AtomicInteger threadCount = new AtomicInteger();
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "RestartableTimer Thread " + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setRemoveOnCancelPolicy(true); // Don't let cancelled operations pile up in the queue.
+    return executor;
+  }
+
+  private static Executor createOperationExecutor() {
+    AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "RestartableTimer Operation " + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
   }
 
   /**
    * Must be called after instantiation. This does not start the timer. The timer only starts with a call to restart().
+   * Calls to restart() before this is called, or after stop() is called, are ignored.
    */
-  public void start() {
-    restartableThread.setDaemon(true);
-    restartableThread.start();
+  public synchronized void start() {
+    started = true;
   }
 
   /**
    * Start or restart the timer. If the timer is running, it gets restarted at the beginning. If it's not, it starts.
    */
-  public void restart() {
-    restartableThread.interrupt();
-  }
-  
-  private static class Task implements Runnable {
-    private final Runnable operation;
-    private final CountDownLatch latch = new CountDownLatch(1);
-    private final long triggerTimeMillis;
-    
-    Task(long triggerTime, Runnable operation) {
-      this.operation = operation;
-      triggerTimeMillis = triggerTime;
+  public synchronized void restart() {
+    if (started) {
+      cancelPending();
+      final long myToken = token;
+      pending = scheduler.schedule(() -> operationExecutor.execute(() -> runIfCurrent(myToken)), triggerTimeMillis,
+          TimeUnit.MILLISECONDS);
     }
+  }
 
-    @Override
-    public void run() {
-      //noinspection InfiniteLoopStatement
-      while (true) {
-        try {
-          latch.await(); // An interrupt here starts the timer.
-        } catch (InterruptedException ignored) { }
-        startTheTimer(); // When the timer finishes, it comes back here.
-      }
+  /**
+   * Cancel any pending operation, and ignore calls to restart() until start() is called again.
+   */
+  public synchronized void stop() {
+    started = false;
+    cancelPending();
+  }
+
+  /**
+   * Returns true if the timer has been started and not stopped.
+   * @return true if calls to restart() will schedule the operation
+   */
+  public synchronized boolean isStarted() { return started; }
+
+  /**
+   * Returns true if the operation is scheduled to run and hasn't run yet.
+   * @return true if the clock is running
+   */
+  public synchronized boolean isPending() { return pending != null; }
+
+  private void cancelPending() {
+    token++; // Invalidates any operation that has already left the queue.
+    if (pending != null) {
+      pending.cancel(false);
+      pending = null;
     }
+  }
 
-    private void startTheTimer() {
-      while (true) {
-        try {
-          //noinspection BusyWait
-          Thread.sleep(triggerTimeMillis); // an interrupt here restarts the timer
-          operation.run();
+  private void runIfCurrent(long myToken) {
+    // Check the token after waiting for any earlier run to finish, so stop() or restart() called in the meantime
+    // still cancels this run.
+    synchronized (runLock) {
+      synchronized (this) {
+        if (myToken != token) {
           return;
-        } catch (InterruptedException ignored) { }
+        }
+        pending = null;
       }
+      // Run outside this lock, so the operation may restart the timer without blocking other threads.
+      operation.run();
     }
   }
 }
@@ -84,21 +84,32 @@ public final class AutoSave implements AWTEventListener {
     }
   }
 
+  /**
+   * Stop the AutoSave. Any pending save is cancelled, and keystrokes are no longer monitored.
+   */
+  public void disengage() {
+    Toolkit.getDefaultToolkit().removeAWTEventListener(this);
+    timer.stop();
+  }
+
   /**
    * Start the AutoSave, setting the timer delay to 60 seconds.
    * @param saveMethod The controller to save the records
+   * @return The AutoSave, which may be used to disengage it later.
    */
-  public static void engage(Runnable saveMethod) {
-    engage(saveMethod, ONE_MINUTE);
+  @SuppressWarnings("UnusedReturnValue")
+  public static AutoSave engage(Runnable saveMethod) {
+    return engage(saveMethod, ONE_MINUTE);
   }
 
   /**
    * Start the AutoSave, using the specified 
    * @param saveMethod The method used to save the changes
    * @param seconds The delay, in seconds, before saving.
+   * @return The AutoSave, which may be used to disengage it later.
    */
-  public static void engage(Runnable saveMethod, int seconds) {
-    //noinspection ResultOfObjectAllocationIgnored
-    new AutoSave(saveMethod, seconds);
+  @SuppressWarnings("UnusedReturnValue")
+  public static AutoSave engage(Runnable saveMethod, int seconds) {
+    return new AutoSave(saveMethod, seconds);
   }
 }
@@ -0,0 +1,147 @@
+package com.neptunedreams.framework.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Loads all the {@link FieldBinding}s of a record together. {@link #prepareEditors(Object)} loads every binding during
+ * a single event, then revalidates and repaints the root component once, so Swing does one layout pass for the whole
+ * record, no matter how many fields it has. Editors that already show the right value aren't touched, so they fire
+ * no document events. While the group is loading, {@link #isLoading()} returns true, so document listeners may ignore
+ * the events caused by loading. Load listeners get notified once, after all the fields are loaded.
+ * <p>
+ * All methods except {@code add()} must be called on the event dispatch thread.
+ *
+ * @param <R> The record type
+ * @author Miguel Muñoz
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BindingGroup<R> {
+  private final List<FieldBinding<R, ?, ?>> bindings = new ArrayList<>();
+  private final List<Consumer<? super R>> loadListeners = new ArrayList<>();
+  private final @Nullable JComponent root;
+  private boolean loading = false;
+
+  /**
+   * Create a BindingGroup with no root component.
+   */
+  public BindingGroup() {
+    this(null);
+  }
+
+  /**
+   * Create a BindingGroup that revalidates and repaints the specified root component after loading a record.
+   * @param root The component that holds all the editors, or null.
+   */
+  public BindingGroup(@Nullable JComponent root) {
+    this.root = root;
+  }
+
+  /**
+   * Add a binding to the group.
+   * @param binding The binding
+   * @param <B> The binding type
+   * @return The binding, for convenience.
+   */
+  public <B extends FieldBinding<R, ?, ?>> B add(B binding) {
+    bindings.add(binding);
+    return binding;
+  }
+
+  /**
+   * Gets the bindings in the group, in the order they were added.
+   * @return an unmodifiable list of the bindings
+   */
+  public List<FieldBinding<R, ?, ?>> getBindings() {
+    return List.copyOf(bindings);
+  }
+
+  /**
+   * Add a listener to get notified after all the editors have been loaded with a record.
+   * @param listener The listener
+   */
+  public void addLoadListener(Consumer<? super R> listener) {
+    loadListeners.add(listener);
+  }
+
+  /**
+   * Remove a load listener.
+   * @param listener The listener
+   */
+  public void removeLoadListener(Consumer<? super R> listener) {
+    loadListeners.remove(listener);
+  }
+
+  /**
+   * Returns true while the group is loading a record into its editors.
+   * @return true while loading
+   */
+  public boolean isLoading() {
+    return loading;
+  }
+
+  /**
+   * Load the record into every editor of the group, then revalidate and repaint the root component once.
+   * @param dataRecord The record to load
+   */
+  public void prepareEditors(R dataRecord) {
+    assert SwingUtilities.isEventDispatchThread();
+    loading = true;
+    try {
+      for (FieldBinding<R, ?, ?> binding : bindings) {
+        binding.prepareEditor(dataRecord);
+      }
+    } finally {
+      loading = false;
+    }
+    if (root != null) {
+      root.revalidate();
+      root.repaint();
+    }
+    for (Consumer<? super R> listener : loadListeners) {
+      listener.accept(dataRecord);
+    }
+  }
+
+  /**
+   * Returns true if any editor of the group holds a value that differs from the record's value.
+   * @param dataRecord The record
+   * @return true if any property has changed
+   */
+  public boolean anyPropertyHasChanged(R dataRecord) {
+    for (FieldBinding<R, ?, ?> binding : bindings) {
+      if (binding.propertyHasChanged(dataRecord)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Save the edits of every editable binding in the group into the record.
+   * @param dataRecord The record
+   */
+  public void saveEdits(R dataRecord) {
+    for (FieldBinding<R, ?, ?> binding : bindings) {
+      if (binding.isEditable()) {
+        binding.getEditableBinding().saveEdit(dataRecord);
+      }
+    }
+  }
+
+  /**
+   * Set the editable state of every editable binding in the group.
+   * @param editable The editable state
+   */
+  public void setEditableState(boolean editable) {
+    for (FieldBinding<R, ?, ?> binding : bindings) {
+      if (binding.isEditable()) {
+        binding.getEditableBinding().setEditableState(editable);
+      }
+    }
+  }
+}
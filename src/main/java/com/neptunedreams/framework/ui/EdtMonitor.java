@@ -0,0 +1,362 @@
+package com.neptunedreams.framework.ui;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Watches the Event Dispatch Thread for events that take too long. Once installed, it measures the time taken to
+ * dispatch each event, and keeps statistics that may be read from any thread. While an event runs past the
+ * threshold, a sampler thread takes periodic stack traces of the Event Dispatch Thread, so a report shows where the
+ * time went, not just where the event ended. When a slow event finishes, each listener gets a {@link SlowEvent}.
+ * <p>
+ * Events dispatched by a secondary loop, like the one that runs a modal dialog, are timed separately. Neither their
+ * time, nor the time the loop spends waiting for them, is charged to the event that opened the dialog.
+ * <p>
+ * To report slow events to the user during development:
+ * <pre>
+ *   EdtMonitor.install(100).addSlowEventListener(
+ *       slowEvent -&gt; ErrorReport.reportException("event dispatch", slowEvent.toException()));
+ * </pre>
+ * With no listeners, slow events are logged.
+ *
+ * @author Miguel Muñoz
+ */
+@SuppressWarnings("WeakerAccess")
+public final class EdtMonitor extends EventQueue {
+  private static final Logger logger = Logger.getLogger(EdtMonitor.class.getName());
+  private static final int MAX_SAMPLES = 20;
+
+  private final long thresholdNanos;
+  private final ScheduledThreadPoolExecutor sampler;
+  private final List<Consumer<? super SlowEvent>> listeners = new CopyOnWriteArrayList<>();
+
+  // Written on the EDT, read by the sampler. dispatchStartNanos is zero when the EDT is idle.
+  private volatile long dispatchStartNanos = 0L;
+  private volatile long currentSequence = 0L;
+  private volatile @Nullable Thread dispatchThread = null;
+
+  // Only used on the EDT. The clock of the current event has run for ownNanos before resumedNanos. It stops while a
+  // secondary loop waits for an event or dispatches one.
+  private long sequenceCounter = 0L;
+  private int depth = 0;
+  private long ownNanos = 0L;
+  private long resumedNanos = 0L;
+
+  // Guarded by sampleLock
+  private final Object sampleLock = new Object();
+  private long sampledSequence = -1L;
+  private List<StackTraceElement[]> samples = new ArrayList<>();
+
+  private final LongAdder dispatchCount = new LongAdder();
+  private final LongAdder slowCount = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  private EdtMonitor(long thresholdMillis) {
+    thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    sampler = new ScheduledThreadPoolExecutor(1, r -> {
+      //noinspection HardCodedStringLiteral
+      Thread thread = new Thread(r, "EdtMonitor Sampler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long sampleInterval = Math.max(1L, thresholdMillis / 2);
+    sampler.scheduleAtFixedRate(this::sample, sampleInterval, sampleInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Install a monitor on the system event queue.
+   * @param thresholdMillis Events that take longer than this are reported as slow.
+   * @return The monitor
+   */
+  public static EdtMonitor install(long thresholdMillis) {
+    if (thresholdMillis <= 0) {
+      //noinspection HardCodedStringLiteral
+      throw new IllegalArgumentException("thresholdMillis: " + thresholdMillis);
+    }
+    EdtMonitor monitor = new EdtMonitor(thresholdMillis);
+    Toolkit.getDefaultToolkit().getSystemEventQueue().push(monitor);
+    return monitor;
+  }
+
+  /**
+   * Remove this monitor from the event queue and stop its sampler thread. Events still queued are handed back to the
+   * previous event queue.
+   */
+  public void uninstall() {
+    sampler.shutdownNow();
+    pop();
+  }
+
+  /**
+   * Add a listener to be notified of slow events. Listeners are called on the Event Dispatch Thread, after the
+   * slow event is finished. Exceptions thrown by listeners are logged.
+   * @param listener The listener
+   * @return this, for convenience
+   */
+  public EdtMonitor addSlowEventListener(Consumer<? super SlowEvent> listener) {
+    listeners.add(listener);
+    return this;
+  }
+
+  /**
+   * Remove a slow event listener.
+   * @param listener The listener
+   */
+  public void removeSlowEventListener(Consumer<? super SlowEvent> listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  protected void dispatchEvent(final AWTEvent event) {
+    final long enter = System.nanoTime();
+    final boolean nested = depth > 0;
+    if (nested) {
+      pauseClock(enter);
+    }
+    final long outerSequence = currentSequence;
+    final long outerOwnNanos = ownNanos;
+    final long sequence = ++sequenceCounter;
+    depth++;
+    dispatchThread = Thread.currentThread();
+    currentSequence = sequence;
+    ownNanos = 0L;
+    resumeClock(enter);
+    try {
+      super.dispatchEvent(event);
+    } finally {
+      final long exit = System.nanoTime();
+      final long nanos = ownNanos + (exit - resumedNanos);
+      depth--;
+      currentSequence = outerSequence;
+      ownNanos = outerOwnNanos;
+      if (nested) {
+        resumeClock(exit);
+      } else {
+        dispatchStartNanos = 0L;
+      }
+      eventFinished(event, sequence, nanos);
+    }
+  }
+
+  @Override
+  public AWTEvent getNextEvent() throws InterruptedException {
+    if ((depth == 0) || (Thread.currentThread() != dispatchThread)) {
+      return super.getNextEvent();
+    }
+    // A secondary loop is waiting for an event, so the event that started it isn't running.
+    pauseClock(System.nanoTime());
+    try {
+      return super.getNextEvent();
+    } finally {
+      resumeClock(System.nanoTime());
+    }
+  }
+
+  private void pauseClock(long now) {
+    ownNanos += now - resumedNanos;
+    dispatchStartNanos = 0L;
+  }
+
+  private void resumeClock(long now) {
+    resumedNanos = now;
+    // The sampler sees the event's own time so far.
+    dispatchStartNanos = now - ownNanos;
+  }
+
+  private void eventFinished(AWTEvent event, long sequence, long nanos) {
+    dispatchCount.increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulateAndGet(nanos, Math::max);
+    List<StackTraceElement[]> eventSamples = Collections.emptyList();
+    synchronized (sampleLock) {
+      if (sampledSequence == sequence) {
+        eventSamples = samples;
+        samples = new ArrayList<>();
+        sampledSequence = -1L;
+      }
+    }
+    if (nanos > thresholdNanos) {
+      slowCount.increment();
+      SlowEvent slowEvent = new SlowEvent(event.toString(), nanos, eventSamples);
+      if (listeners.isEmpty()) {
+        logger.log(Level.WARNING, slowEvent.toString(), slowEvent.toException());
+      }
+      for (Consumer<? super SlowEvent> listener : listeners) {
+        // This runs in dispatchEvent's finally block, so an exception here would hide the event's own exception.
+        try {
+          listener.accept(slowEvent);
+        } catch (RuntimeException e) {
+          //noinspection HardCodedStringLiteral
+          logger.log(Level.WARNING, "Exception thrown by slow event listener " + listener, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs on the sampler thread. Takes a stack trace of the Event Dispatch Thread if the current event has run past
+   * the threshold.
+   */
+  private void sample() {
+    final long start = dispatchStartNanos;
+    final long sequence = currentSequence;
+    final Thread thread = dispatchThread;
+    if ((start == 0L) || (thread == null) || ((System.nanoTime() - start) <= thresholdNanos)) {
+      return;
+    }
+    final StackTraceElement[] stackTrace = thread.getStackTrace();
+    synchronized (sampleLock) {
+      if (currentSequence != sequence) {
+        return; // The event finished while we were taking the sample.
+      }
+      if (sampledSequence != sequence) {
+        sampledSequence = sequence;
+        samples = new ArrayList<>();
+      }
+      if (samples.size() < MAX_SAMPLES) {
+        samples.add(stackTrace);
+      }
+    }
+  }
+
+  /**
+   * Gets the number of events dispatched since the monitor was installed or reset.
+   * @return the number of events
+   */
+  public long getDispatchCount() { return dispatchCount.sum(); }
+
+  /**
+   * Gets the number of events that took longer than the threshold.
+   * @return the number of slow events
+   */
+  public long getSlowEventCount() { return slowCount.sum(); }
+
+  /**
+   * Gets the average time to dispatch an event.
+   * @param unit The time unit of the result
+   * @return the average dispatch time, or zero if nothing has been dispatched.
+   */
+  public double getAverageDispatchTime(TimeUnit unit) {
+    long count = dispatchCount.sum();
+    return (count == 0) ? 0.0 : ((double) totalNanos.sum() / count / unit.toNanos(1));
+  }
+
+  /**
+   * Gets the longest time taken to dispatch an event.
+   * @param unit The time unit of the result
+   * @return the maximum dispatch time
+   */
+  public long getMaxDispatchTime(TimeUnit unit) {
+    return unit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Reset the statistics.
+   */
+  public void reset() {
+    dispatchCount.reset();
+    slowCount.reset();
+    totalNanos.reset();
+    maxNanos.set(0L);
+  }
+
+  @Override
+  public String toString() {
+    //noinspection HardCodedStringLiteral
+    return String.format("EdtMonitor[events=%d, slow=%d, avg=%.3f ms, max=%d ms]", getDispatchCount(),
+        getSlowEventCount(), getAverageDispatchTime(TimeUnit.MILLISECONDS), getMaxDispatchTime(TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * An event that took longer than the threshold, with the stack traces taken while it ran.
+   */
+  public static final class SlowEvent {
+    private final String event;
+    private final long nanos;
+    private final List<StackTraceElement[]> stackSamples;
+
+    SlowEvent(String event, long nanos, List<StackTraceElement[]> stackSamples) {
+      this.event = event;
+      this.nanos = nanos;
+      this.stackSamples = Collections.unmodifiableList(stackSamples);
+    }
+
+    /**
+     * Gets a description of the event.
+     * @return the event's toString() value
+     */
+    public String getEvent() { return event; }
+
+    /**
+     * Gets the time spent dispatching the event.
+     * @param unit The time unit of the result
+     * @return the dispatch time
+     */
+    public long getDispatchTime(TimeUnit unit) { return unit.convert(nanos, TimeUnit.NANOSECONDS); }
+
+    /**
+     * Gets the stack traces of the Event Dispatch Thread taken while the event ran past the threshold, oldest first.
+     * This may be empty if the event finished before the sampler looked at it.
+     * @return the stack samples
+     */
+    public List<StackTraceElement[]> getStackSamples() { return stackSamples; }
+
+    /**
+     * Express this as an exception, for reporting with tools that report exceptions, like ErrorReport. The stack
+     * trace of the exception is the first sample, and each later sample that differs from it is added as a
+     * suppressed exception.
+     * @return an exception describing the slow event
+     */
+    public RuntimeException toException() {
+      RuntimeException exception = new SlowEventException(toString());
+      if (!stackSamples.isEmpty()) {
+        final StackTraceElement[] first = stackSamples.get(0);
+        exception.setStackTrace(first);
+        StackTraceElement[] prior = first;
+        for (int i = 1; i < stackSamples.size(); ++i) {
+          final StackTraceElement[] sample = stackSamples.get(i);
+          if (!Arrays.equals(sample, prior)) {
+            //noinspection HardCodedStringLiteral
+            RuntimeException later = new SlowEventException("Sample " + (i + 1));
+            later.setStackTrace(sample);
+            exception.addSuppressed(later);
+          }
+          prior = sample;
+        }
+      }
+      return exception;
+    }
+
+    @Override
+    public String toString() {
+      //noinspection HardCodedStringLiteral
+      return String.format("Slow event (%d ms): %s", getDispatchTime(TimeUnit.MILLISECONDS), event);
+    }
+  }
+
+  private static final class SlowEventException extends RuntimeException {
+    SlowEventException(String message) {
+      super(message, null, true, true);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this; // The stack trace comes from the samples.
+    }
+  }
+}
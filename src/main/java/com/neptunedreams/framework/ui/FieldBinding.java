@@ -2,17 +2,41 @@ package com.neptunedreams.framework.ui;
 
 import java.awt.Color;
 import java.awt.Component;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import javax.swing.JLabel;
 import javax.swing.JTextArea;
 import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
+import javax.swing.text.PlainDocument;
 import org.jetbrains.annotations.Nullable;
 
 /**
  * Bind an editor or display field to a property of a data model.
+ * <p>
+ * Each binding caches, for the last few records it has seen, the String it displayed and the cleaned value it
+ * compared against, so flipping between records and checking for unsaved changes don't convert and clean large
+ * values over and over. The getter is still called every time, and a cached entry is only used if the getter returns
+ * the very same object it returned before, so changes made to the record by other code are never missed. Entries are
+ * also invalidated by {@code setValue()} and {@code saveEdit()}. Bindings are only used on the Event Dispatch Thread,
+ * so the cache isn't synchronized.
+ * <p>
+ * Editable bindings also watch their editor's document. If the editor still shows exactly what the binding last loaded
+ * into it, {@code prepareEditor()} leaves it alone, so reloading a record doesn't replace documents or fire document
+ * events for fields that haven't changed. To load many bindings at once, see {@link BindingGroup}.
+ * The same listener counts edits, so {@code propertyHasChanged()} only reads the editor's text when the editor has
+ * been edited since it last matched the record.
  * <p>Created by IntelliJ IDEA.
  * <p>Date: 12/6/17
  * <p>Time: 12:03 AM
@@ -24,6 +48,9 @@ public abstract class FieldBinding<R, T, C extends Component> {
   private final Function<? super R, ? extends T> getter;
   private final C editor;
   private final boolean isEditable;
+  private final ValueCache<R, T> valueCache = new ValueCache<>();
+  private @Nullable String loadedString = null;
+  private boolean isLoadingEditor = false;
   @SuppressWarnings("assignment") // Checker thinks getColor() may return null.
   private static final Color DISABLED_COLOR = UIManager.getDefaults().getColor("TextField.inactiveBackground");
 
@@ -53,8 +80,67 @@ public abstract class FieldBinding<R, T, C extends Component> {
    * @param dataRecord The dataModel record.
    */
   public final void prepareEditor(R dataRecord) {
-    T loadedValue = getTheValue(dataRecord);
-    loadStringValue(getStringValue(loadedValue));
+    CachedValue<T> cachedValue = getCachedValue(dataRecord);
+    if (cachedValue.rendered == null) {
+      cachedValue.rendered = getStringValue(cachedValue.raw);
+    }
+    final String rendered = cachedValue.rendered;
+    if (!rendered.equals(loadedString) || editorChangedSinceLoad()) {
+      isLoadingEditor = true;
+      try {
+        loadStringValue(rendered);
+      } finally {
+        isLoadingEditor = false;
+      }
+      loadedString = rendered;
+      editorLoaded();
+    }
+    editorShows(dataRecord, cachedValue.raw);
+    resetEditorPosition();
+  }
+
+  /**
+   * Returns true while the binding is loading a value into its editor. Listeners on the editor may use this to ignore
+   * the events caused by loading.
+   * @return true while loading
+   */
+  boolean isLoadingEditor() { return isLoadingEditor; }
+
+  /**
+   * Returns true if the editor's contents may have changed since this binding last loaded it. The default returns
+   * true, so the editor always gets reloaded. Bindings that watch their editors override this.
+   * @return true if the editor needs to be reloaded even when the value hasn't changed
+   */
+  boolean editorChangedSinceLoad() { return true; }
+
+  /**
+   * Called after the binding loads a value into the editor.
+   */
+  void editorLoaded() { }
+
+  /**
+   * Called when the editor is known to show the record's value. The default does nothing.
+   * @param record The record
+   * @param raw The value the getter returned for the record
+   */
+  void editorShows(R record, T raw) { }
+
+  /**
+   * Called at the end of {@code prepareEditor()}, whether or not the editor was reloaded. Subclasses may override this
+   * to put the caret or scroll position where it should be for a newly displayed record. The default does nothing.
+   */
+  protected void resetEditorPosition() { }
+
+  private CachedValue<T> getCachedValue(R record) {
+    return valueCache.get(record, getTheValue(record));
+  }
+
+  /**
+   * Discards the cached values for the record. This should be called whenever the binding changes the record's value.
+   * @param record The record
+   */
+  void invalidateCache(R record) {
+    valueCache.remove(record);
   }
 
   /**
@@ -88,7 +174,13 @@ public abstract class FieldBinding<R, T, C extends Component> {
    * @return The cleaned value from the dataModel
    */
   public T getValue(R record) {
-    return clean(getTheValue(record));
+    CachedValue<T> cachedValue = getCachedValue(record);
+    if (!cachedValue.isCleaned) {
+      cachedValue.cleaned = clean(cachedValue.raw);
+      cachedValue.isCleaned = true;
+    }
+    //noinspection ConstantConditions
+    return cachedValue.cleaned;
   }
 
   /**
@@ -137,11 +229,82 @@ public abstract class FieldBinding<R, T, C extends Component> {
     private static final Color ENABLED_COLOR = UIManager.getColor("TextField.background");
     private final BiConsumer<? super R, ? super T> setter;
     private final boolean editableState = false;
+    private int editCount = 0;
+    private int loadedEditCount = -1;
+    private int matchedEditCount = -1;
+    private WeakReference<R> matchedRecord = new WeakReference<>(null);
+    private @Nullable T matchedRaw = null;
 
     protected EditableFieldBinding(Function<? super R, ? extends T> aGetter, BiConsumer<? super R, ? super T> aSetter, C aField) {
       super(aGetter, aField);
       setter = aSetter;
       aField.setEditable(false);
+      watchEditor(aField);
+    }
+
+    @SuppressWarnings("HardCodedStringLiteral")
+    private void watchEditor(C aField) {
+      DocumentListener changeListener = new DocumentListener() {
+        @Override
+        public void insertUpdate(final DocumentEvent e) { documentChanged(); }
+
+        @Override
+        public void removeUpdate(final DocumentEvent e) { documentChanged(); }
+
+        @Override
+        public void changedUpdate(final DocumentEvent e) { } // Attribute changes don't change the value.
+      };
+      aField.getDocument().addDocumentListener(changeListener);
+      aField.addPropertyChangeListener("document", evt -> {
+        if (evt.getOldValue() instanceof Document oldDocument) {
+          oldDocument.removeDocumentListener(changeListener);
+        }
+        if (evt.getNewValue() instanceof Document newDocument) {
+          newDocument.addDocumentListener(changeListener);
+        }
+        documentChanged();
+      });
+    }
+
+    private void documentChanged() {
+      if (!isLoadingEditor()) {
+        editCount++;
+      }
+    }
+
+    @Override
+    boolean editorChangedSinceLoad() { return editCount != loadedEditCount; }
+
+    @Override
+    void editorLoaded() { loadedEditCount = editCount; }
+
+    @Override
+    void editorShows(R record, T raw) {
+      if (matchedRecord.get() != record) {
+        matchedRecord = new WeakReference<>(record);
+      }
+      matchedRaw = raw;
+      matchedEditCount = editCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This doesn't read the editor if the editor hasn't been touched since it was last known to hold the record's
+     * value, and the getter still returns the same object, so checking an unmodified record doesn't depend on the
+     * size of its text.
+     */
+    @Override
+    public boolean propertyHasChanged(R record) {
+      final T raw = getTheValue(record);
+      if ((editCount == matchedEditCount) && (matchedRecord.get() == record) && (raw == matchedRaw)) {
+        return false;
+      }
+      if (super.propertyHasChanged(record)) {
+        return true;
+      }
+      editorShows(record, raw);
+      return false;
     }
 
     @Override
@@ -155,7 +318,9 @@ public abstract class FieldBinding<R, T, C extends Component> {
      * @param record The record to receive the editor's value
      */
     public void saveEdit(R record) {
+      invalidateCache(record);
       setter.accept(record, readFieldValue());
+      editorShows(record, getTheValue(record));
     }
 
     /**
@@ -167,6 +332,7 @@ public abstract class FieldBinding<R, T, C extends Component> {
     public void setValue(R record, T value) {
       assert record != null : "Null record";
       assert value != null : "Null value";
+      invalidateCache(record);
       setter.accept(record, clean(value));
     }
     
@@ -209,10 +375,52 @@ public abstract class FieldBinding<R, T, C extends Component> {
    * @param <D> The DataModel type.
    */
   public static class StringEditableBinding<D> extends EditableFieldBinding<D, String, JTextComponent> {
+    private @Nullable DocumentCache documentCache = null;
+
     StringEditableBinding(Function<? super D, String> aGetter, BiConsumer<? super D, ? super String> aSetter, JTextComponent aField) {
       super(aGetter, aSetter, aField);
     }
 
+    /**
+     * Load values by swapping a new document into the editor, instead of calling {@code setText()}. This is much
+     * faster for very large values, since the new document has no views, listeners, or undo managers to notify while
+     * it's being filled. The binding keeps the most recently used documents, so going back to a recently shown record
+     * just swaps its document back in. Documents may also be built ahead of time, off the event dispatch thread, with
+     * {@link #preloadDocument(Object)}.
+     * <p>
+     * The swapped-in documents are PlainDocuments, so this should only be used with editors that use a PlainDocument,
+     * like JTextField and JTextArea. Listeners and undo managers attached to the editor's document won't follow it to
+     * the new document. Code that needs them should listen for the editor's "document" property.
+     * @param cacheSize The number of recently used documents to keep
+     * @return this, for convenience
+     */
+    public StringEditableBinding<D> swapDocuments(int cacheSize) {
+      if (cacheSize < 1) {
+        //noinspection HardCodedStringLiteral
+        throw new IllegalArgumentException("cacheSize: " + cacheSize);
+      }
+      documentCache = new DocumentCache(cacheSize);
+      return this;
+    }
+
+    /**
+     * Build the document for the record's value on a background thread, so it's ready when the record is shown. The
+     * value is read from the record on the calling thread. Document swapping must be enabled.
+     * @param dataRecord The record
+     * @return A future that completes when the document is ready.
+     * @see #swapDocuments(int)
+     */
+    public CompletableFuture<Void> preloadDocument(D dataRecord) {
+      final DocumentCache cache = documentCache;
+      if (cache == null) {
+        //noinspection HardCodedStringLiteral
+        throw new IllegalStateException("Document swapping is not enabled");
+      }
+      final String text = clean(getStringValue(getTheValue(dataRecord)));
+      final Object tabSize = getEditor().getDocument().getProperty(PlainDocument.tabSizeAttribute);
+      return CompletableFuture.runAsync(() -> cache.get(text, tabSize));
+    }
+
     @Override
     protected String getFieldValue() {
       return getEditor().getText();
@@ -220,10 +428,23 @@ public abstract class FieldBinding<R, T, C extends Component> {
 
     @Override
     protected void loadStringValue(final String editorValue) {
+      final DocumentCache cache = documentCache;
       final JTextComponent editor = getEditor();
-      editor.setText(clean(editorValue));
-      
+      if (cache == null) {
+        editor.setText(clean(editorValue));
+      } else {
+        final Document current = editor.getDocument();
+        final Document document = cache.get(clean(editorValue), current.getProperty(PlainDocument.tabSizeAttribute));
+        if (document != current) {
+          editor.setDocument(document);
+        }
+      }
+    }
+
+    @Override
+    protected void resetEditorPosition() {
       // Don't scroll to the end on multi-line text components. This makes the swipe animation smoother.
+      final JTextComponent editor = getEditor();
       if (editor instanceof JTextArea) {
         editor.setSelectionStart(0);
         editor.setSelectionEnd(0);
@@ -256,6 +477,145 @@ public abstract class FieldBinding<R, T, C extends Component> {
 
   }
   
+  /**
+   * The values derived from one value returned by the getter. The rendered and cleaned values are computed when
+   * they're first needed.
+   * @param <T> The value type
+   */
+  private static final class CachedValue<T> {
+    private final T raw;
+    private @Nullable String rendered = null;
+    private @Nullable T cleaned = null;
+    private boolean isCleaned = false;
+
+    CachedValue(T raw) {
+      this.raw = raw;
+    }
+  }
+
+  /**
+   * A small, most-recently-used cache of CachedValues, keyed by the identity of the record. Records are held weakly,
+   * so the cache doesn't keep deleted records alive. We don't use a WeakHashMap, because records may override 
+   * equals() and hashCode() to compare their data, which is both slow and wrong for this purpose.
+   * @param <R> The record type
+   * @param <T> The value type
+   */
+  private static final class ValueCache<R, T> {
+    private static final int CAPACITY = 8;
+    private final List<Entry<R, T>> entries = new ArrayList<>(CAPACITY);
+
+    /**
+     * Gets the cached value for the record, replacing it if the getter now returns a different object.
+     * @param record The record
+     * @param raw The value the getter returned just now
+     * @return The cached value
+     */
+    CachedValue<T> get(R record, T raw) {
+      for (int i = 0; i < entries.size(); ++i) {
+        Entry<R, T> entry = entries.get(i);
+        if (entry.record.get() == record) {
+          if (entry.value.raw != raw) {
+            entry.value = new CachedValue<>(raw);
+          }
+          if (i > 0) {
+            entries.remove(i);
+            entries.add(0, entry);
+          }
+          return entry.value;
+        }
+      }
+      entries.removeIf(e -> e.record.get() == null);
+      if (entries.size() >= CAPACITY) {
+        entries.remove(entries.size() - 1);
+      }
+      Entry<R, T> entry = new Entry<>(record, new CachedValue<>(raw));
+      entries.add(0, entry);
+      return entry.value;
+    }
+
+    void remove(R record) {
+      entries.removeIf(e -> e.record.get() == record);
+    }
+
+    private static final class Entry<R, T> {
+      private final WeakReference<R> record;
+      private CachedValue<T> value;
+
+      Entry(R record, CachedValue<T> value) {
+        this.record = new WeakReference<>(record);
+        this.value = value;
+      }
+    }
+  }
+
+  /**
+   * The most recently used documents of a StringEditableBinding, keyed by their text. Since the key is the text, a
+   * record whose value has changed never gets a stale document. A document is dropped from the cache as soon as it's
+   * edited. Documents may be built on any thread, so access is synchronized.
+   */
+  private static final class DocumentCache {
+    private final Map<String, Document> documents;
+
+    DocumentCache(int capacity) {
+      documents = new LinkedHashMap<>(capacity, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Document> eldest) {
+          return size() > capacity;
+        }
+      };
+    }
+
+    /**
+     * Gets a document holding the text, building it if it isn't cached.
+     * @param text The text
+     * @param tabSize The tab size property of the editor's current document, or null
+     * @return The document
+     */
+    Document get(String text, @Nullable Object tabSize) {
+      synchronized (documents) {
+        Document document = documents.get(text);
+        if (document != null) {
+          return document;
+        }
+      }
+      Document document = buildDocument(text, tabSize);
+      synchronized (documents) {
+        Document existing = documents.putIfAbsent(text, document);
+        return (existing == null) ? document : existing;
+      }
+    }
+
+    private Document buildDocument(String text, @Nullable Object tabSize) {
+      PlainDocument document = new PlainDocument();
+      if (tabSize != null) {
+        document.putProperty(PlainDocument.tabSizeAttribute, tabSize);
+      }
+      try {
+        document.insertString(0, text, null);
+      } catch (BadLocationException e) {
+        throw new IllegalStateException(e);
+      }
+      document.addDocumentListener(new DocumentListener() {
+        @Override
+        public void insertUpdate(final DocumentEvent e) { evict(); }
+
+        @Override
+        public void removeUpdate(final DocumentEvent e) { evict(); }
+
+        @Override
+        public void changedUpdate(final DocumentEvent e) { }
+
+        private void evict() {
+          synchronized (documents) {
+            documents.remove(text, document);
+          }
+          document.removeDocumentListener(this);
+        }
+      });
+      return document;
+    }
+  }
+
   public static <R> StringEditableBinding<R> bindEditableString(Function<? super R, String> getter, BiConsumer<? super R, ? super String> setter, JTextComponent field) {
     return new StringEditableBinding<>(getter, setter, field);
   }
@@ -1,20 +1,29 @@
 package com.neptunedreams.framework.ui;
 
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Highlighter;
 import javax.swing.text.JTextComponent;
+import javax.swing.text.Segment;
 
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.NotNull;
@@ -38,6 +47,8 @@ public class FieldIterator {
   @SuppressWarnings("FieldCanBeLocal")
   private final boolean isEmpty;
   private final int id;
+  private final char[][] terms;
+  private final List<MatchHighlights> matchHighlights = new ArrayList<>();
 
   /**
    * Iterates through all found strings on the current on-screen result 
@@ -49,45 +60,31 @@ public class FieldIterator {
   public FieldIterator(Collection<JTextComponent> componentList, Direction direction, int id, String... searchTerms) {
     this.componentList = new ArrayList<>(componentList);
     this.id = id;
-    final List<SearchTermElement> searchTermElements = new LinkedList<>(assembleIterator(searchTerms));
-    listIterator = searchTermElements.listIterator();
-    this.direction = direction;
+    terms = assembleTerms(searchTerms);
+    MatchIterator matchIterator = new MatchIterator(terms);
+    isEmpty = !matchIterator.hasNext();
     if (direction == Direction.BACKWARD) {
-      // start at the end
-      while (listIterator.hasNext()) {
-        listIterator.next();
-      }
+      matchIterator.moveToEnd(); // start at the end
     }
-    isEmpty = searchTermElements.isEmpty();
+    listIterator = matchIterator;
+    this.direction = direction;
   }
 
-  private Set<SearchTermElement> assembleIterator(FieldIterator this, String... terms) {
+  /**
+   * Converts the search terms to the form used for searching: Upper case, without duplicates or empty terms, sorted
+   * from shortest to longest.
+   * @param terms The search terms
+   * @return The terms, as arrays of upper-case characters
+   */
+  static char[][] assembleTerms(String... terms) {
     // pack all Strings into a TreeSet to eliminate duplicates and pre-sort them by length
     TreeSet<String> allTerms = Arrays.stream(terms)
         .map(String::toUpperCase)
         .filter(s -> !s.isEmpty())
         .collect(Collectors.toCollection(() -> new TreeSet<>(Comparator.comparing(String::length).thenComparing(String::toString))));
-    int componentIndex = 0;
-    Set<SearchTermElement> localSearchTermElements = new TreeSet<>();
-    if (allTerms.isEmpty()) {
-      // skip the searching!
-      return localSearchTermElements;
-    }
-    for (JTextComponent component: componentList) {
-      String componentText = component.getText().toUpperCase();
-      for (String term: allTerms) {
-        int index = 0;
-        while (index >= 0) {
-          index = componentText.indexOf(term, index);
-          if (index >= 0) {
-            localSearchTermElements.add(new SearchTermElement(term, index, componentIndex));
-            index++;
-          }
-        }
-      }
-      componentIndex++;
-    }
-    return localSearchTermElements;
+    return allTerms.stream()
+        .map(String::toCharArray)
+        .toArray(char[][]::new);
   }
 
   /**
@@ -176,6 +173,500 @@ public class FieldIterator {
     return id;
   }
 
+  /**
+   * Highlight every match in every component with the painter. The matches are found on a background thread, under
+   * each document's read lock, and then installed on the event dispatch thread. Only the matches in the visible part of
+   * each component get installed in its Highlighter, all in one event, so Swing repaints them together. As the user
+   * scrolls, the installed highlights follow the visible region, so a document with thousands of matches only has a
+   * screen full of highlights. Where several terms match at the same place, only the longest is highlighted. When a
+   * document changes, its highlights are removed, and its matches are found again.
+   * <p>
+   * This replaces any highlights from an earlier call. Must be called on the event dispatch thread.
+   * @param painter The painter, which is shared by all the highlights.
+   * @return A future that completes on the event dispatch thread, once the highlights have been installed.
+   */
+  public CompletableFuture<Void> highlightAll(Highlighter.HighlightPainter painter) {
+    assert SwingUtilities.isEventDispatchThread();
+    clearHighlights();
+    CompletableFuture<?>[] searches = new CompletableFuture[componentList.size()];
+    for (int i = 0; i < searches.length; ++i) {
+      MatchHighlights highlights = new MatchHighlights(componentList.get(i), painter, terms);
+      matchHighlights.add(highlights);
+      searches[i] = highlights.search();
+    }
+    return CompletableFuture.allOf(searches);
+  }
+
+  /**
+   * Remove all the highlights installed by {@code highlightAll()}, including any that are still being computed.
+   * Must be called on the event dispatch thread.
+   */
+  public void clearHighlights() {
+    assert SwingUtilities.isEventDispatchThread();
+    for (MatchHighlights highlights : matchHighlights) {
+      highlights.dispose();
+    }
+    matchHighlights.clear();
+  }
+
+  /**
+   * Finds the ranges to highlight in the document. This may be called from any thread.
+   * @return The start and end of each match, in order, as pairs in a single array.
+   */
+  private static int[] findMatchRanges(Document document, char[][] terms) {
+    final DocumentText text = new DocumentText();
+    final int[][] result = { new int[0] };
+    document.render(() -> {
+      text.load(document);
+      int[] ranges = new int[16];
+      int count = 0;
+      int coveredTo = 0;
+      final int length = text.length();
+      for (int index = 0; index < length; ++index) {
+        for (int t = terms.length - 1; t >= 0; --t) { // longest first
+          final char[] term = terms[t];
+          if (((index + term.length) <= length) && matchesAt(text, index, term)) {
+            final int end = index + term.length;
+            if (end > coveredTo) { // Skip matches hidden inside an earlier, longer match.
+              if ((count + 2) > ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+              }
+              ranges[count++] = index;
+              ranges[count++] = end;
+              coveredTo = end;
+            }
+            break;
+          }
+        }
+      }
+      result[0] = Arrays.copyOf(ranges, count);
+    });
+    return result[0];
+  }
+
+  /**
+   * The text of a document, read without copying it. A document's content usually keeps its text in one array with a
+   * gap in it, and reading across the gap with a plain Segment copies the whole text into a new array. Instead, this
+   * reads the text as a series of partial Segments, each of which refers to part of the content's own array, and
+   * finds the right part for each character, so a term that spans two parts still matches.
+   * <p>
+   * The parts are only valid until the document changes, so this must be loaded and read while the document is
+   * locked, or on the event dispatch thread.
+   */
+  static final class DocumentText implements CharSequence {
+    private final Segment segment = new Segment();
+    private char[][] arrays = new char[2][];
+    private int[] offsets = new int[2];
+    private int[] starts = new int[3]; // starts[partCount] is the length of the text
+    private int partCount = 0;
+    private int part = 0; // The part of the last character read
+
+    DocumentText() {
+      segment.setPartialReturn(true);
+    }
+
+    void load(Document document) {
+      final int length = document.getLength();
+      partCount = 0;
+      part = 0;
+      int position = 0;
+      while (position < length) {
+        try {
+          document.getText(position, length - position, segment);
+        } catch (BadLocationException e) {
+          throw new IllegalStateException(e);
+        }
+        if (partCount == arrays.length) {
+          arrays = Arrays.copyOf(arrays, partCount * 2);
+          offsets = Arrays.copyOf(offsets, partCount * 2);
+          starts = Arrays.copyOf(starts, (partCount * 2) + 1);
+        }
+        arrays[partCount] = segment.array;
+        offsets[partCount] = segment.offset;
+        starts[partCount] = position;
+        partCount++;
+        position += segment.count;
+      }
+      starts[partCount] = length;
+    }
+
+    int getPartCount() { return partCount; }
+
+    @Override
+    public int length() { return starts[partCount]; }
+
+    @Override
+    public char charAt(int index) {
+      int p = part;
+      if ((index < starts[p]) || (index >= starts[p + 1])) {
+        p = findPart(index);
+        part = p;
+      }
+      return arrays[p][(offsets[p] + index) - starts[p]];
+    }
+
+    private int findPart(int index) {
+      int low = 0;
+      int high = partCount - 1;
+      while (low < high) {
+        int mid = (low + high + 1) >>> 1;
+        if (starts[mid] <= index) {
+          low = mid;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return low;
+    }
+
+    @Override
+    public @NotNull CharSequence subSequence(int start, int end) {
+      StringBuilder builder = new StringBuilder(end - start);
+      for (int i = start; i < end; ++i) {
+        builder.append(charAt(i));
+      }
+      return builder;
+    }
+
+    @Override
+    public @NotNull String toString() { return subSequence(0, length()).toString(); }
+  }
+
+  /**
+   * The highlights of one component. Keeps the visible matches installed in the component's Highlighter, and updates
+   * them when the component moves or changes size, which is what happens when it scrolls in a viewport. When the
+   * document changes, the matches are out of date, so the highlights are removed until a new search finishes.
+   */
+  private static final class MatchHighlights extends ComponentAdapter implements DocumentListener {
+    private final JTextComponent component;
+    private final Document document;
+    private final Highlighter.HighlightPainter painter;
+    private final char[][] terms;
+    private int[] ranges = new int[0];
+    private final List<Object> tags = new ArrayList<>();
+    private int firstInstalled = 0;
+    private int lastInstalled = -1;
+    private int generation = 0;
+    private boolean disposed = false;
+
+    MatchHighlights(JTextComponent component, Highlighter.HighlightPainter painter, char[][] terms) {
+      this.component = component;
+      document = component.getDocument();
+      this.painter = painter;
+      this.terms = terms;
+      component.addComponentListener(this);
+      document.addDocumentListener(this);
+    }
+
+    /**
+     * Find the matches on a background thread, and install them on the event dispatch thread, unless the document
+     * changed or the highlights were disposed in the meantime.
+     * @return A future that completes on the event dispatch thread once the search is done.
+     */
+    CompletableFuture<Void> search() {
+      final int searchGeneration = ++generation;
+      return CompletableFuture.supplyAsync(() -> findMatchRanges(document, terms))
+          .thenAcceptAsync(found -> {
+            if (!disposed && (searchGeneration == generation)) {
+              setRanges(found);
+            }
+          }, SwingUtilities::invokeLater);
+    }
+
+    @Override
+    public void insertUpdate(final DocumentEvent e) { documentChanged(); }
+
+    @Override
+    public void removeUpdate(final DocumentEvent e) { documentChanged(); }
+
+    @Override
+    public void changedUpdate(final DocumentEvent e) { } // Attributes don't move the matches.
+
+    private void documentChanged() {
+      if (!SwingUtilities.isEventDispatchThread()) {
+        SwingUtilities.invokeLater(this::documentChanged);
+        return;
+      }
+      if (!disposed) {
+        setRanges(new int[0]);
+        search();
+      }
+    }
+
+    private void setRanges(int[] newRanges) {
+      removeTags();
+      ranges = newRanges;
+      firstInstalled = 0;
+      lastInstalled = -1;
+      update();
+    }
+
+    @Override
+    public void componentMoved(final ComponentEvent e) { update(); }
+
+    @Override
+    public void componentResized(final ComponentEvent e) { update(); }
+
+    @Override
+    public void componentShown(final ComponentEvent e) { update(); }
+
+    /**
+     * Install the highlights of the matches in the visible region, and remove the others.
+     */
+    void update() {
+      Rectangle visible = component.getVisibleRect();
+      int first = 0;
+      int last = -1;
+      if (!visible.isEmpty()) {
+        final int startOffset = component.viewToModel2D(new Point(visible.x, visible.y));
+        final int endOffset = component.viewToModel2D(new Point(visible.x + visible.width, visible.y + visible.height));
+        first = firstRangeEndingAfter(startOffset);
+        last = first - 1;
+        while (((last + 1) < (ranges.length / 2)) && (ranges[(last + 1) * 2] <= endOffset)) {
+          last++;
+        }
+      }
+      if ((first == firstInstalled) && (last == lastInstalled)) {
+        return;
+      }
+      removeTags();
+      final Highlighter highlighter = component.getHighlighter();
+      final int documentLength = component.getDocument().getLength();
+      for (int i = first; i <= last; ++i) {
+        final int end = ranges[(i * 2) + 1];
+        if (end <= documentLength) {
+          try {
+            tags.add(highlighter.addHighlight(ranges[i * 2], end, painter));
+          } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }
+      firstInstalled = first;
+      lastInstalled = last;
+    }
+
+    private int firstRangeEndingAfter(int offset) {
+      int low = 0;
+      int high = ranges.length / 2;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (ranges[(mid * 2) + 1] <= offset) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    private void removeTags() {
+      final Highlighter highlighter = component.getHighlighter();
+      for (Object tag : tags) {
+        highlighter.removeHighlight(tag);
+      }
+      tags.clear();
+    }
+
+    int getInstalledCount() { return tags.size(); }
+
+    void dispose() {
+      disposed = true;
+      component.removeComponentListener(this);
+      document.removeDocumentListener(this);
+      removeTags();
+    }
+  }
+
+  /**
+   * Gets the number of highlights currently installed by {@code highlightAll()}, for testing.
+   * @return the number of installed highlights
+   */
+  int getInstalledHighlightCount() {
+    int count = 0;
+    for (MatchHighlights highlights : matchHighlights) {
+      count += highlights.getInstalledCount();
+    }
+    return count;
+  }
+
+  /**
+   * Counts the matches in the text, the same way a FieldIterator finds them, so a match of each term at each position
+   * is counted separately. This may be called from any thread.
+   * @param text The text to search
+   * @param terms The terms, as produced by {@code assembleTerms()}
+   * @return The number of matches
+   */
+  static int countMatches(CharSequence text, char[][] terms) {
+    int count = 0;
+    final int length = text.length();
+    for (int index = 0; index < length; ++index) {
+      for (char[] term : terms) {
+        if ((index + term.length) > length) {
+          break; // The remaining terms are even longer.
+        }
+        if (matchesAt(text, index, term)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  private static boolean matchesAt(CharSequence text, int index, char[] term) {
+    for (int i = 0; i < term.length; ++i) {
+      if (Character.toUpperCase(text.charAt(index + i)) != term[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A ListIterator over the matches, in the order of SearchTermElement, which finds them as it goes. It keeps a cursor
+   * in that order, and each call to {@code next()} or {@code previous()} scans the documents from the cursor to the
+   * nearest match in that direction, so the first match is found without scanning every component, and no match is
+   * created until the user navigates to it. The documents are read through a DocumentText, which refers to the
+   * document's own character array instead of copying it, and compared to the upper-case terms one character at a
+   * time, so no upper-case copy of the text is ever made.
+   * <p>
+   * The index and modification methods of ListIterator are not supported.
+   */
+  private final class MatchIterator implements ListIterator<SearchTermElement> {
+    private final char[][] terms; // upper case, shortest first
+    private final DocumentText text = new DocumentText();
+
+    // The cursor: Matches that sort before (cursorComponent, cursorChar, cursorLength) are behind it.
+    private int cursorComponent = 0;
+    private int cursorChar = 0;
+    private int cursorLength = 0;
+
+    // The matches on either side of the cursor, found by hasNext() or hasPrevious()
+    private @Nullable SearchTermElement nextMatch = null;
+    private boolean nextMatchFound = false;
+    private @Nullable SearchTermElement previousMatch = null;
+    private boolean previousMatchFound = false;
+
+    MatchIterator(char[][] terms) {
+      this.terms = terms;
+    }
+
+    void moveToEnd() {
+      setCursor(componentList.size(), 0, 0);
+    }
+
+    private void setCursor(int component, int charIndex, int length) {
+      cursorComponent = component;
+      cursorChar = charIndex;
+      cursorLength = length;
+      nextMatchFound = false;
+      previousMatchFound = false;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (!nextMatchFound) {
+        nextMatch = findNext();
+        nextMatchFound = true;
+      }
+      return nextMatch != null;
+    }
+
+    @Override
+    public SearchTermElement next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      SearchTermElement match = Objects.requireNonNull(nextMatch);
+      setCursor(match.componentIndex, match.charIndex, match.termUpperCase.length() + 1);
+      return match;
+    }
+
+    @Override
+    public boolean hasPrevious() {
+      if (!previousMatchFound) {
+        previousMatch = findPrevious();
+        previousMatchFound = true;
+      }
+      return previousMatch != null;
+    }
+
+    @Override
+    public SearchTermElement previous() {
+      if (!hasPrevious()) {
+        throw new NoSuchElementException();
+      }
+      SearchTermElement match = Objects.requireNonNull(previousMatch);
+      setCursor(match.componentIndex, match.charIndex, match.termUpperCase.length());
+      return match;
+    }
+
+    /**
+     * Finds the first match at or after the cursor.
+     * @return the match, or null if there are none.
+     */
+    private @Nullable SearchTermElement findNext() {
+      for (int component = cursorComponent; component < componentList.size(); ++component) {
+        final boolean atCursor = component == cursorComponent;
+        final int start = atCursor ? cursorChar : 0;
+        final int length = loadText(component);
+        for (int index = start; index < length; ++index) {
+          for (char[] term : terms) { // shortest first
+            if (((index > start) || !atCursor || (term.length >= cursorLength)) && matches(term, index, length)) {
+              return new SearchTermElement(new String(term), index, component);
+            }
+          }
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Finds the last match before the cursor.
+     * @return the match, or null if there are none.
+     */
+    private @Nullable SearchTermElement findPrevious() {
+      for (int component = Math.min(cursorComponent, componentList.size() - 1); component >= 0; --component) {
+        final boolean atCursor = component == cursorComponent;
+        final int length = loadText(component);
+        final int start = atCursor ? Math.min(cursorChar, length) : length;
+        for (int index = Math.min(start, length - 1); index >= 0; --index) {
+          for (int t = terms.length - 1; t >= 0; --t) { // longest first
+            final char[] term = terms[t];
+            if (((index < start) || (term.length < cursorLength)) && matches(term, index, length)) {
+              return new SearchTermElement(new String(term), index, component);
+            }
+          }
+        }
+      }
+      return null;
+    }
+
+    private int loadText(int componentIndex) {
+      text.load(componentList.get(componentIndex).getDocument());
+      return text.length();
+    }
+
+    private boolean matches(char[] term, int index, int length) {
+      return ((index + term.length) <= length) && matchesAt(text, index, term);
+    }
+
+    @Override
+    public int nextIndex() { throw new UnsupportedOperationException(); }
+
+    @Override
+    public int previousIndex() { throw new UnsupportedOperationException(); }
+
+    @Override
+    public void remove() { throw new UnsupportedOperationException(); }
+
+    @Override
+    public void set(final SearchTermElement searchTermElement) { throw new UnsupportedOperationException(); }
+
+    @Override
+    public void add(final SearchTermElement searchTermElement) { throw new UnsupportedOperationException(); }
+  }
+
   static class SearchTermElement implements Comparable<SearchTermElement> {
     private final int charIndex;
     private final String termUpperCase;
@@ -0,0 +1,212 @@
+package com.neptunedreams.framework.ui;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import javax.swing.SwingUtilities;
+import com.neptunedreams.framework.data.RecordModel;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Finds search matches across every record of a {@link RecordModel}, so the user can jump straight to the next record
+ * that contains a match, without loading each of the records in between. When it's constructed, the navigator reads
+ * the searchable field values of every record, then counts the matches in the background, in parallel. Once the index
+ * is ready, {@link #goToNextMatch()} and {@link #goToPreviousMatch()} move the model to the next or previous record
+ * with a match. Within the record, a {@link FieldIterator} with the same search terms finds the matches themselves.
+ * Matches are counted the same way a FieldIterator finds them.
+ * <p>
+ * The navigator takes a snapshot of the records. When the model gets a new list, or records get added or removed, the
+ * navigator indexes the records again the next time it's used. The model can't tell when the fields of a record get
+ * edited, so the navigator should be replaced then. Except for {@link #isReady()} and {@link #whenReady(Runnable)}, all methods should be called on
+ * the event dispatch thread.
+ * <p>
+ * Example:
+ * <pre>
+ *   navigator = new RecordMatchNavigator&lt;&gt;(model, List.of(Note::getTitle, Note::getText), searchTerms);
+ *   navigator.whenReady(() -&gt; nextMatchButton.setEnabled(navigator.hasMatches()));
+ * </pre>
+ *
+ * @param <R> The record type
+ * @author Miguel Muñoz
+ */
+@SuppressWarnings("WeakerAccess")
+public final class RecordMatchNavigator<R> {
+  private final RecordModel<R> model;
+  private final List<Function<? super R, @Nullable String>> fieldGetters;
+  private final String[] searchTerms;
+  private final char[][] terms;
+  private volatile Index index;
+
+  /**
+   * Start indexing the records of the model.
+   * @param model The model
+   * @param fieldGetters Getters for the searchable fields. Null values are treated as empty.
+   * @param searchTerms The search terms
+   */
+  public RecordMatchNavigator(RecordModel<R> model, List<Function<? super R, @Nullable String>> fieldGetters, String... searchTerms) {
+    this.model = model;
+    this.fieldGetters = List.copyOf(fieldGetters);
+    this.searchTerms = searchTerms.clone();
+    terms = FieldIterator.assembleTerms(searchTerms);
+    index = createIndex();
+  }
+
+  private Index createIndex() {
+    final int modificationCount = model.getModificationCount();
+    final int recordCount = model.getSize();
+
+    // Read the values here, where it's safe to touch the records. Only the searching is done in the background.
+    final String[][] fieldValues = new String[recordCount][];
+    for (int i = 0; i < recordCount; ++i) {
+      R record = model.getRecordAt(i);
+      String[] values = new String[fieldGetters.size()];
+      for (int f = 0; f < values.length; ++f) {
+        final String value = fieldGetters.get(f).apply(record);
+        values[f] = (value == null) ? "" : value;
+      }
+      fieldValues[i] = values;
+    }
+    return new Index(modificationCount, fieldValues, terms);
+  }
+
+  /**
+   * Returns true once all the records have been indexed. This may be called from any thread.
+   * @return true if the index is ready
+   */
+  public boolean isReady() {
+    return index.future.isDone();
+  }
+
+  /**
+   * Runs the operation on the event dispatch thread once the index is ready. This may be called from any thread.
+   * @param operation The operation
+   */
+  public void whenReady(Runnable operation) {
+    index.future.thenRun(() -> SwingUtilities.invokeLater(operation));
+  }
+
+  /**
+   * Gets the search terms
+   * @return the search terms, for constructing a FieldIterator on the current record.
+   */
+  public String[] getSearchTerms() {
+    return searchTerms.clone();
+  }
+
+  /**
+   * Returns true if any record has a match.
+   * @return true if there are any matches
+   */
+  public boolean hasMatches() {
+    return !getIndex().recordsWithMatches.isEmpty();
+  }
+
+  /**
+   * Gets the number of records with matches.
+   * @return the number of records with at least one match
+   */
+  public int getRecordsWithMatchesCount() {
+    return getIndex().recordsWithMatches.cardinality();
+  }
+
+  /**
+   * Gets the number of matches in the record at the specified index of the model.
+   * @param recordIndex The index of the record
+   * @return The number of matches
+   */
+  public int getMatchCount(int recordIndex) {
+    return getIndex().matchCounts[recordIndex];
+  }
+
+  /**
+   * Moves the model to the next record after the current one that has a match, wrapping around to the beginning if
+   * necessary. If the current record is the only one with a match, the model stays where it is.
+   * @return true if a record with a match was found, false if no record has a match
+   */
+  public boolean goToNextMatch() {
+    final BitSet matches = getIndex().recordsWithMatches;
+    final int current = model.getRecordIndex();
+    int next = matches.nextSetBit(current + 1);
+    if (next < 0) {
+      next = matches.nextSetBit(0);
+    }
+    return goTo(next);
+  }
+
+  /**
+   * Moves the model to the previous record before the current one that has a match, wrapping around to the end if
+   * necessary. If the current record is the only one with a match, the model stays where it is.
+   * @return true if a record with a match was found, false if no record has a match
+   */
+  public boolean goToPreviousMatch() {
+    final BitSet matches = getIndex().recordsWithMatches;
+    final int current = model.getRecordIndex();
+    int previous = (current > 0) ? matches.previousSetBit(current - 1) : -1;
+    if (previous < 0) {
+      previous = matches.previousSetBit(model.getSize() - 1);
+    }
+    return goTo(previous);
+  }
+
+  private boolean goTo(int recordIndex) {
+    if (recordIndex < 0) {
+      return false;
+    }
+    model.goToRecord(recordIndex);
+    return true;
+  }
+
+  /**
+   * Gets the index, waiting for it if it's not ready yet. If the model's list has changed since it was indexed, this
+   * indexes it again first. UI code should wait for {@code whenReady()} before navigating, so it doesn't block the
+   * event dispatch thread.
+   * @return the index
+   */
+  private Index getIndex() {
+    Index current = index;
+    if (current.modificationCount != model.getModificationCount()) {
+      current = createIndex();
+      index = current;
+    }
+    current.future.join();
+    return current;
+  }
+
+  /**
+   * The match counts of the records, as they were when the index was created.
+   */
+  private static final class Index {
+    private final int modificationCount;
+    private final CompletableFuture<Void> future;
+
+    // Written by the indexing task, and safely published by the completion of future.
+    private final int[] matchCounts;
+    private final BitSet recordsWithMatches = new BitSet();
+
+    Index(int modificationCount, String[][] fieldValues, char[][] terms) {
+      this.modificationCount = modificationCount;
+      matchCounts = new int[fieldValues.length];
+      future = CompletableFuture.runAsync(() -> count(fieldValues, terms));
+    }
+
+    private void count(String[][] fieldValues, char[][] terms) {
+      if (terms.length == 0) {
+        return;
+      }
+      IntStream.range(0, fieldValues.length).parallel().forEach(i -> {
+        int count = 0;
+        for (String value : fieldValues[i]) {
+          count += FieldIterator.countMatches(value, terms);
+        }
+        matchCounts[i] = count;
+      });
+      for (int i = 0; i < matchCounts.length; ++i) {
+        if (matchCounts[i] > 0) {
+          recordsWithMatches.set(i);
+        }
+      }
+    }
+  }
+}
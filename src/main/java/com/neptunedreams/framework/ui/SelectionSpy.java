@@ -9,6 +9,8 @@ import javax.swing.FocusManager;
 import javax.swing.SwingUtilities;
 import javax.swing.event.CaretEvent;
 import javax.swing.event.CaretListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 
 import org.jetbrains.annotations.Nullable;
@@ -17,6 +19,10 @@ import org.jetbrains.annotations.Nullable;
  * Keeps an eye on the selected text and the focused text component.
  * <p>
  *   This class also responds to listeners when the selection changes or the focus moves in or out of text components.
+ * <p>
+ *   Caret updates only record the bounds of the selection. The selected text is read from the document when
+ *   {@link #getSelectedText()} is called, so dragging or typing with a selection doesn't copy the selected text on
+ *   every caret event. SelectionExistsListeners are only notified when a selection appears or disappears.
  * <p>Created by IntelliJ IDEA.
  * <p>Date: 12/8/19
  * <p>Time: 4:18 PM
@@ -35,7 +41,15 @@ public enum SelectionSpy implements CaretListener {
   @SuppressWarnings("NonFinalFieldInEnum")
   private @Nullable JTextComponent focusedTextComponent = null;
   @SuppressWarnings("NonFinalFieldInEnum")
-  private String selectedText;
+  private @Nullable JTextComponent selectionSource = null;
+  @SuppressWarnings("NonFinalFieldInEnum")
+  private int selectionStart = 0;
+  @SuppressWarnings("NonFinalFieldInEnum")
+  private int selectionEnd = 0;
+  @SuppressWarnings("NonFinalFieldInEnum")
+  private @Nullable String selectedText = null; // Read from the document when first requested
+  @SuppressWarnings("NonFinalFieldInEnum")
+  private boolean selectionExistsFired = false;
   private @Nullable JTextComponent priorFocusedTextComponent = null;
   
   private final List<SelectionExistsListener> selectionExistsListeners = new LinkedList<>();
@@ -44,21 +58,32 @@ public enum SelectionSpy implements CaretListener {
   SelectionSpy() {
     final DefaultKeyboardFocusManager focusManager = FocusManager.getCurrentManager();
     focusManager.addPropertyChangeListener("focusOwner", new FocusOwnerListener());
-    selectedText=""; // Checker framework needs this initialized here instead of in declaration, probably because this is an enum.
   }
   
   @Override
   public void caretUpdate(final CaretEvent e) {
-    if (e.getDot() == e.getMark()) {
-      selectedText = "";
-      fireSelectionExistsListeners(false);
-    } else if (focusedTextComponent != null) { // if is always true, but required by the null checker
-      selectedText = focusedTextComponent.getSelectedText();
-      fireSelectionExistsListeners(true);
+    final int dot = e.getDot();
+    final int mark = e.getMark();
+    final int start = Math.min(dot, mark);
+    final int end = Math.max(dot, mark);
+    if ((start != selectionStart) || (end != selectionEnd) || (selectionSource != focusedTextComponent)) {
+      selectionSource = focusedTextComponent;
+      selectionStart = start;
+      selectionEnd = end;
+      selectedText = null;
     }
+    fireSelectionExistsListeners(start != end);
+  }
+
+  private boolean hasSelection() {
+    return selectionStart != selectionEnd;
   }
   
   private void fireSelectionExistsListeners(boolean value) {
+    if (value == selectionExistsFired) {
+      return;
+    }
+    selectionExistsFired = value;
     for (SelectionExistsListener listener : selectionExistsListeners) {
       listener.respond(value);
     }
@@ -99,8 +124,35 @@ public enum SelectionSpy implements CaretListener {
     selectionExistsListeners.remove(listener);
   }
 
+  /**
+   * Gets the most recently selected text. This is still available after the focus moves to a component that isn't a
+   * text component, like a menu item.
+   * @return The selected text, or an empty String if nothing is selected
+   */
   public String getSelectedText() {
-    return selectedText;
+    String text = selectedText;
+    if (text == null) {
+      text = readSelectedText();
+      selectedText = text;
+    }
+    return text;
+  }
+
+  private String readSelectedText() {
+    final JTextComponent source = selectionSource;
+    if ((source == null) || !hasSelection()) {
+      return "";
+    }
+    final Document document = source.getDocument();
+    final int end = Math.min(selectionEnd, document.getLength());
+    if (selectionStart >= end) {
+      return "";
+    }
+    try {
+      return document.getText(selectionStart, end - selectionStart);
+    } catch (BadLocationException e) {
+      return "";
+    }
   }
 
   /**
@@ -177,7 +229,7 @@ public enum SelectionSpy implements CaretListener {
       boolean selectionExists = false;
       if (newValue instanceof JTextComponent textComponent) {
         reassignCaretListener(textComponent);
-        selectionExists = !selectedText.isEmpty();
+        selectionExists = hasSelection();
       } else if (newValue != null) {
         priorFocusedTextComponent = focusedTextComponent;
         reassignCaretListener(null);
@@ -2,14 +2,17 @@ package com.neptunedreams.framework.ui;
 
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.GraphicsDevice;
-import java.awt.GraphicsEnvironment;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.lang.reflect.Field;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.TimeUnit;
 import javax.swing.AbstractAction;
 import javax.swing.AbstractButton;
 import javax.swing.ActionMap;
@@ -23,6 +26,7 @@ import javax.swing.plaf.LayerUI;
 
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import static javax.swing.JComponent.*;
 
@@ -31,6 +35,11 @@ import static javax.swing.JComponent.*;
  * action. It also optionally supports a repeated action when the mouse is held down.
  * <p>
  * This class is very specific right now, but I hope to generalize it for other special effects later.
+ * <p>
+ * The before and after pictures are kept in snapshots that get reused from one swipe to the next. They use video
+ * memory when the screen supports it, and hold one pixel for each device pixel of the screen the component is on, at
+ * whatever scale that screen uses, including fractional scales. Each frame only repaints the strip between the old
+ * and new positions of the boundary, since nothing else changes.
  * <p>Created by IntelliJ IDEA.
  * <p>Date: 4/4/18
  * <p>Time: 12:38 AM
@@ -39,39 +48,8 @@ import static javax.swing.JComponent.*;
  */
 public final class SwipeView<C extends JComponent> extends LayerUI<C> {
 
-  private static final int SCALE = calculateScaleForDefaultScreen();
   private static final int HALF_SECOND = 500;
-
-  private static int calculateScaleForDefaultScreen() {
-    GraphicsDevice defaultScreenDevice = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
-    String javaVersion = System.getProperty("java.version");
-    
-    // The default transform for the device doesn't work on Java 8. It always returns the identity transform, regardless of the screen.
-    // So we use this kludge for anything before Java 1.9.
-    if (javaVersion.compareTo("1.9") < 0) {
-      // 1.8 or before
-      try {
-        Field scaleField = defaultScreenDevice.getClass().getDeclaredField("scale");
-        scaleField.setAccessible(true);
-        Object fieldValue = scaleField.get(defaultScreenDevice);
-        if (fieldValue == null) {
-          return 1;
-        }
-        return (Integer) fieldValue;
-//        return scaleField.getInt(defaultScreenDevice);
-      } catch (IllegalAccessException | NoSuchFieldException e) {
-        e.printStackTrace();
-        return 1;
-      }
-    }
-    // scale will be 2.0 for a Retina screen, and 1.0 for an older screen
-    double scale = defaultScreenDevice
-        .getDefaultConfiguration()
-        .getDefaultTransform()
-        .getScaleX(); // Requires Java 9+ to work. Compiles under Java 8 but always returns 1.0.
-    //noinspection NumericCastThatLosesPrecision
-    return (int) Math.round(scale);
-  }
+  private static final int FRAME_MILLIS = 1000 / 60;
 
   /**
    * @param recordView The view to wrap with a swipe action with a duration of one half of a second.
@@ -99,29 +77,76 @@ public final class SwipeView<C extends JComponent> extends LayerUI<C> {
   
   private final C liveComponent;
 
-  // Dummy values, which get replaced later.
-  private BufferedImage priorScreen= new BufferedImage(1, 1, 1); // Dummy screen
-  private BufferedImage finalScreen= new BufferedImage(1, 1, 1); // Dummy screen
+  // Reused for every swipe. They only get replaced when they're too small or no longer compatible with the screen.
+  private final Snapshot priorScreen = new Snapshot();
+  private final Snapshot finalScreen = new Snapshot();
   private final JLayer<C> layer;
   
   private boolean isAnimating = false;
   private SwipeDirection swipeDirection = SwipeDirection.SWIPE_RIGHT;
-  private final int maxFrames;
+  private final long durationNanos;
+  private Easing easing = Easing.LINEAR;
+  private final FrameStatistics frameStatistics = new FrameStatistics();
+  private boolean paintFinalScreenLive = false;
 
   // Calculated:
-  private final int frameMillis;
-  private int frame = 0;
+  private final int frameMillis = FRAME_MILLIS;
+  private final Timer animationTimer;
+  private long animationStartNanos = 0L;
+  private double progress = 0.0; // From 0.0 to 1.0, after easing
   
   private SwipeView(C view, JLayer<C> theLayer, int animationDurationMillis) {
     super();
     liveComponent = view;
     layer = theLayer;
-    maxFrames = (30 * animationDurationMillis) / 1000;
-    frameMillis = animationDurationMillis / maxFrames;
+    durationNanos = TimeUnit.MILLISECONDS.toNanos(animationDurationMillis);
+    animationTimer = new Timer(frameMillis, e -> nextFrame());
+    // When the layer moves to another screen, the snapshots get recreated at that screen's scale.
+    //noinspection HardCodedStringLiteral
+    layer.addPropertyChangeListener("graphicsConfiguration", evt -> {
+      priorScreen.release();
+      finalScreen.release();
+    });
   }
   
   public JLayer<C> getLayer() { return layer; }
 
+  /**
+   * Sets the easing curve of the swipe. The default is {@link Easing#LINEAR}, which moves at a constant speed.
+   * @param easing The easing curve
+   */
+  public void setEasing(Easing easing) { this.easing = easing; }
+
+  /**
+   * Choose how the new state of the component gets drawn during a swipe. Normally, the whole component gets painted
+   * into a snapshot after the operation, before the first frame, so the swipe starts one full paint late. When
+   * painting live, there's no snapshot. Since the new state is drawn where the component itself would draw it, each
+   * frame just lets the component paint the strip that was revealed since the last frame. The swipe starts at once,
+   * and the cost of painting the new state is spread across the frames. Don't use this if the component may change
+   * while the swipe is running, since the change would show up in the revealed part.
+   * @param live true to paint the new state live, false to use a snapshot
+   */
+  public void setPaintFinalScreenLive(boolean live) { paintFinalScreenLive = live; }
+
+  /**
+   * Returns true if the new state is painted live during a swipe.
+   * @return true if painting live
+   * @see #setPaintFinalScreenLive(boolean)
+   */
+  public boolean isPaintFinalScreenLive() { return paintFinalScreenLive; }
+
+  /**
+   * Gets the easing curve of the swipe.
+   * @return The easing curve
+   */
+  public Easing getEasing() { return easing; }
+
+  /**
+   * Gets the frame-time statistics of the most recent swipe, or the current one if a swipe is in progress.
+   * @return The statistics. The same object is updated by each swipe.
+   */
+  public FrameStatistics getFrameStatistics() { return frameStatistics; }
+
   /**
    * Perform the specified operation with a swipe-right special effect. This is often used in an ActionListener:
    * <pre>
@@ -158,78 +183,367 @@ public final class SwipeView<C extends JComponent> extends LayerUI<C> {
   @Override
   public void paint(final Graphics g, final JComponent c) {
     if (isAnimating) {
-      int xLimit = (c.getWidth() * SCALE * frame) / maxFrames;
-      if (swipeDirection == SwipeDirection.SWIPE_LEFT) {
-        xLimit = (c.getWidth() * SCALE) - xLimit;
+      final int width = c.getWidth();
+      final int height = c.getHeight();
+      final int xLimit = getBoundary(width);
+      final boolean finalOnLeft = swipeDirection == SwipeDirection.SWIPE_RIGHT;
+
+      // Only draw the sides that intersect the clip. Each frame only repaints the strip the boundary crossed.
+      final Rectangle clip = g.getClipBounds();
+      boolean drawn = true;
+      if ((clip == null) || (clip.x < xLimit)) {
+        drawn = finalOnLeft ? drawFinal(g, 0, xLimit, height, c) : priorScreen.draw(g, 0, xLimit, height, c);
       }
-
-      int width = c.getWidth() * SCALE;
-      int height = c.getHeight() * SCALE;
-
-      assert finalScreen != null;
-      assert priorScreen != null;
-      if (swipeDirection == SwipeDirection.SWIPE_RIGHT) {
-        g.drawImage(finalScreen, 0, 0, xLimit, height, 0, 0, xLimit*SCALE, height*SCALE, c);
-        g.drawImage(priorScreen, xLimit, 0, width, height, xLimit*SCALE, 0, width*SCALE, height*SCALE, c);
-      } else {
-        g.drawImage(finalScreen, xLimit, 0, width, height, xLimit*SCALE, 0, width*SCALE, height*SCALE, c);
-        g.drawImage(priorScreen, 0, 0, xLimit, height, 0, 0, xLimit*SCALE, height*SCALE, c);
+      if ((clip == null) || ((clip.x + clip.width) > xLimit)) {
+        drawn &= finalOnLeft ? priorScreen.draw(g, xLimit, width, height, c) : drawFinal(g, xLimit, width, height, c);
+      }
+      frameStatistics.framePainted(System.nanoTime());
+      if (!drawn) {
+        // The screen lost the contents of an image. There's nothing left to animate, so just show the result.
+        stopAnimating();
+        super.paint(g, c);
       }
     } else {
       super.paint(g, c);
     }
   }
+
+  /**
+   * Draws a strip of the final state, from the snapshot, or straight from the live component when painting live.
+   */
+  private boolean drawFinal(Graphics g, int x1, int x2, int height, JComponent c) {
+    if (!paintFinalScreenLive) {
+      return finalScreen.draw(g, x1, x2, height, c);
+    }
+    Graphics strip = g.create();
+    try {
+      strip.clipRect(x1, 0, x2 - x1, height);
+      super.paint(strip, c);
+    } finally {
+      strip.dispose();
+    }
+    return true;
+  }
+
+  /**
+   * Gets the x coordinate of the boundary between the two images for the current frame.
+   * @param width The width of the layer
+   * @return The boundary
+   */
+  private int getBoundary(int width) {
+    //noinspection NumericCastThatLosesPrecision
+    int xLimit = (int) Math.round(width * progress);
+    if (swipeDirection == SwipeDirection.SWIPE_LEFT) {
+      xLimit = width - xLimit;
+    }
+    return xLimit;
+  }
   
   private void prepareToAnimate(SwipeDirection swipeDirection) {
     this.swipeDirection = swipeDirection;
     isAnimating = true;
-    frame = 0;
+    progress = 0.0;
 
     // Save current state
-    int scaledWidth = liveComponent.getWidth() * SCALE;
-    
-    // if the screen size has changed, create new graphics
-    BufferedImage NotNullPriorScreen;
-    if ((priorScreen == null) || (priorScreen.getWidth() != scaledWidth)) {
-      int scaledHeight = liveComponent.getHeight() * SCALE;
-      NotNullPriorScreen = createLocalImage(scaledWidth, scaledHeight);
-      priorScreen = NotNullPriorScreen;
-      finalScreen = createLocalImage(scaledWidth, scaledHeight);
-    } else {
-      NotNullPriorScreen = priorScreen;
+    priorScreen.render(liveComponent);
+  }
+
+  private void animate() {
+    if (!paintFinalScreenLive) {
+      finalScreen.render(liveComponent); // paint the upcoming state of liveComponent into the image
     }
+    animationStartNanos = System.nanoTime();
+    frameStatistics.start(animationStartNanos, frameMillis);
+    animationTimer.restart(); // If a swipe was already running, this one takes over its timer.
+  }
 
-    Graphics2D graphics2D = (Graphics2D) NotNullPriorScreen.getGraphics();
-    graphics2D.scale(SCALE, SCALE);
-    liveComponent.paint(graphics2D); // paint the current state of liveComponent into the image
-    graphics2D.dispose();
+  /**
+   * Advances the animation. The position comes from the time since the animation started, not from the number of
+   * ticks, so a busy Event Dispatch Thread makes the animation skip frames instead of running long.
+   */
+  private void nextFrame() {
+    if (!isAnimating) {
+      return; // A tick that was already queued when the animation stopped.
+    }
+    final double elapsed = (double) (System.nanoTime() - animationStartNanos) / durationNanos;
+    final double time = Math.min(1.0, elapsed);
+    final int width = layer.getWidth();
+    final int priorBoundary = getBoundary(width);
+    progress = easing.apply(time);
+    final int boundary = getBoundary(width);
+    // Only the strip between the old and new boundaries has changed.
+    layer.repaint(Math.min(priorBoundary, boundary), 0, Math.abs(boundary - priorBoundary), layer.getHeight());
+    if (time >= 1.0) {
+      stopAnimating();
+    }
   }
 
-  private void animate() {
-    Timer timer = new Timer(frameMillis, null);
-    final ActionListener actionListener = (evt) -> {
-      frame++;
-      layer.repaint();
-      if (frame == maxFrames) {
-        frame = 0;
-        isAnimating = false;
-        timer.stop();
+  private void stopAnimating() {
+    animationTimer.stop();
+    progress = 0.0;
+    isAnimating = false;
+    frameStatistics.finish(System.nanoTime());
+    layer.repaint();
+  }
+
+  /**
+   * Easing curves for the swipe. Each maps the fraction of the duration that has passed to the fraction of the
+   * distance the boundary has moved.
+   */
+  public enum Easing {
+    /** Constant speed */
+    LINEAR {
+      @Override
+      double apply(double t) { return t; }
+    },
+    /** Starts fast and slows down at the end */
+    EASE_OUT {
+      @Override
+      double apply(double t) {
+        final double remaining = 1.0 - t;
+        return 1.0 - (remaining * remaining * remaining);
+      }
+    },
+    /** Speeds up, then slows down */
+    EASE_IN_OUT {
+      @Override
+      double apply(double t) {
+        if (t < 0.5) {
+          return 4.0 * t * t * t;
+        }
+        final double remaining = (-2.0 * t) + 2.0;
+        return 1.0 - ((remaining * remaining * remaining) / 2.0);
       }
     };
-    
-    BufferedImage fScreen = finalScreen;
-    timer.addActionListener(actionListener);
-    Graphics2D graphics2D = GraphicsEnvironment.getLocalGraphicsEnvironment().createGraphics(fScreen);
-    graphics2D.scale(SCALE, SCALE);
-    liveComponent.paint(graphics2D); // paint the upcoming state of liveComponent into the image
-    graphics2D.dispose();
-    
-    timer.start();
+
+    abstract double apply(double t);
+  }
+
+  /**
+   * Frame-time statistics for a swipe. A frame is counted each time the swipe gets painted. A frame is late if it
+   * comes more than one and a half timer intervals after the one before it. All times are in milliseconds.
+   */
+  @SuppressWarnings("WeakerAccess")
+  public static final class FrameStatistics {
+    private long startNanos = 0L;
+    private long lastFrameNanos = 0L;
+    private long finishNanos = 0L;
+    private long lateThresholdNanos = 0L;
+    private int frameCount = 0;
+    private int lateFrameCount = 0;
+    private long maxIntervalNanos = 0L;
+
+    FrameStatistics() { }
+
+    void start(long nanos, int frameMillis) {
+      startNanos = nanos;
+      lastFrameNanos = nanos;
+      finishNanos = 0L;
+      lateThresholdNanos = (TimeUnit.MILLISECONDS.toNanos(frameMillis) * 3) / 2;
+      frameCount = 0;
+      lateFrameCount = 0;
+      maxIntervalNanos = 0L;
+    }
+
+    void framePainted(long nanos) {
+      final long interval = nanos - lastFrameNanos;
+      lastFrameNanos = nanos;
+      frameCount++;
+      maxIntervalNanos = Math.max(maxIntervalNanos, interval);
+      if (interval > lateThresholdNanos) {
+        lateFrameCount++;
+      }
+    }
+
+    void finish(long nanos) { finishNanos = nanos; }
+
+    /**
+     * Gets the number of frames painted.
+     * @return the frame count
+     */
+    public int getFrameCount() { return frameCount; }
+
+    /**
+     * Gets the number of frames that came late.
+     * @return the late frame count
+     */
+    public int getLateFrameCount() { return lateFrameCount; }
+
+    /**
+     * Gets the average time between frames.
+     * @return the average frame time, in milliseconds, or zero if nothing was painted
+     */
+    public double getAverageFrameMillis() {
+      return (frameCount == 0) ? 0.0 : ((double) (lastFrameNanos - startNanos) / frameCount / 1.0e6);
+    }
+
+    /**
+     * Gets the longest time between frames.
+     * @return the maximum frame time, in milliseconds
+     */
+    public double getMaxFrameMillis() { return maxIntervalNanos / 1.0e6; }
+
+    /**
+     * Gets the time the swipe took, from the start of the animation to its end.
+     * @return the duration in milliseconds, or zero if the swipe hasn't finished
+     */
+    public double getDurationMillis() { return (finishNanos == 0L) ? 0.0 : ((finishNanos - startNanos) / 1.0e6); }
+
+    @Override
+    public String toString() {
+      //noinspection HardCodedStringLiteral
+      return String.format("FrameStatistics[frames=%d, late=%d, avg=%.1f ms, max=%.1f ms, duration=%.1f ms]",
+          frameCount, lateFrameCount, getAverageFrameMillis(), getMaxFrameMillis(), getDurationMillis());
+    }
   }
 
-  private static @NotNull BufferedImage createLocalImage(int width, int height) {
-    GraphicsEnvironment graphicsEnvironment = GraphicsEnvironment.getLocalGraphicsEnvironment();
-    return graphicsEnvironment.getDefaultScreenDevice().getDefaultConfiguration().createCompatibleImage(width, height);
+  /**
+   * A snapshot of the component, for the animation. This uses a VolatileImage, which may live in video memory, when
+   * the component is on a screen that supports it, and a BufferedImage otherwise. The image is reused as long as
+   * it's big enough and still compatible with the component's screen. When it has to grow, it grows to hold both the
+   * old and new sizes, so a component that changes between a few sizes soon stops allocating new images.
+   * <p>
+   * A VolatileImage made by a screen's GraphicsConfiguration already renders at that screen's scale, so it's sized
+   * and drawn in user space. A BufferedImage knows nothing about the screen, so it's sized in device pixels, and the
+   * component gets scaled when it's painted into it.
+   */
+  static final class Snapshot {
+    private @Nullable VolatileImage volatileImage = null;
+    private @Nullable BufferedImage bufferedImage = null;
+    private @Nullable GraphicsConfiguration imageConfiguration = null;
+
+    // For the BufferedImage: the scale from user space to its pixels, and the part of it the component fills.
+    private double scaleX = 1.0;
+    private double scaleY = 1.0;
+    private int deviceWidth = 1;
+    private int deviceHeight = 1;
+
+    /**
+     * Paint the component into the snapshot, at the scale of the screen it's on. The scale may be fractional, like
+     * 1.25 or 1.5, and may differ from one screen to another.
+     * @param component The component
+     */
+    void render(JComponent component) {
+      final GraphicsConfiguration configuration = component.getGraphicsConfiguration();
+      if (configuration != imageConfiguration) {
+        release(); // On a new screen, start over with images sized for that screen.
+        imageConfiguration = configuration;
+      }
+      final int width = Math.max(1, component.getWidth());
+      final int height = Math.max(1, component.getHeight());
+      if (configuration != null) {
+        // A VolatileImage may lose its contents at any time, so we give it a second chance before giving up on it.
+        for (int attempt = 0; attempt < 2; ++attempt) {
+          VolatileImage image = volatileImage;
+          if ((image == null) || (image.getWidth() < width) || (image.getHeight() < height)
+              || (image.validate(configuration) == VolatileImage.IMAGE_INCOMPATIBLE)) {
+            final int imageWidth = (image == null) ? width : Math.max(width, image.getWidth());
+            final int imageHeight = (image == null) ? height : Math.max(height, image.getHeight());
+            if (image != null) {
+              image.flush();
+            }
+            image = configuration.createCompatibleVolatileImage(imageWidth, imageHeight);
+            volatileImage = image;
+          }
+          paintInto(image.createGraphics(), component, width, height, 1.0, 1.0);
+          if (!image.contentsLost()) {
+            bufferedImage = null;
+            return;
+          }
+        }
+        if (volatileImage != null) {
+          volatileImage.flush();
+          volatileImage = null;
+        }
+      }
+
+      // Fall back to a BufferedImage
+      if (configuration == null) {
+        scaleX = 1.0;
+        scaleY = 1.0;
+      } else {
+        AffineTransform transform = configuration.getDefaultTransform();
+        scaleX = transform.getScaleX();
+        scaleY = transform.getScaleY();
+      }
+      //noinspection NumericCastThatLosesPrecision
+      deviceWidth = Math.max(1, (int) Math.ceil(width * scaleX));
+      //noinspection NumericCastThatLosesPrecision
+      deviceHeight = Math.max(1, (int) Math.ceil(height * scaleY));
+      BufferedImage image = bufferedImage;
+      if ((image == null) || (image.getWidth() < deviceWidth) || (image.getHeight() < deviceHeight)) {
+        final int imageWidth = (image == null) ? deviceWidth : Math.max(deviceWidth, image.getWidth());
+        final int imageHeight = (image == null) ? deviceHeight : Math.max(deviceHeight, image.getHeight());
+        image = (configuration == null)
+            ? new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB)
+            : configuration.createCompatibleImage(imageWidth, imageHeight);
+        bufferedImage = image;
+      }
+      paintInto(image.createGraphics(), component, deviceWidth, deviceHeight, scaleX, scaleY);
+    }
+
+    private static void paintInto(Graphics2D graphics2D, JComponent component, int width, int height, double scaleX,
+                                  double scaleY) {
+      // The image may be bigger than the component, or hold an older picture, so clear the part we use.
+      graphics2D.setColor(component.getBackground());
+      graphics2D.fillRect(0, 0, width, height);
+      graphics2D.scale(scaleX, scaleY);
+      component.paint(graphics2D);
+      graphics2D.dispose();
+    }
+
+    /**
+     * Let go of the images, so they get recreated at the right size for the component's screen.
+     */
+    void release() {
+      if (volatileImage != null) {
+        volatileImage.flush();
+        volatileImage = null;
+      }
+      bufferedImage = null;
+      imageConfiguration = null;
+    }
+
+    /**
+     * Gets the image that holds the snapshot.
+     * @return the image, or null if nothing has been rendered since the last release
+     */
+    @Nullable Image getImage() {
+      return (volatileImage == null) ? bufferedImage : volatileImage;
+    }
+
+    /**
+     * Draw a vertical strip of the snapshot at the same place in the destination.
+     * @param g The destination
+     * @param x1 The left edge of the strip, in user space
+     * @param x2 The right edge of the strip, in user space
+     * @param height The height of the strip, in user space
+     * @param observer The image observer
+     * @return false if the snapshot has lost its contents, true otherwise
+     */
+    boolean draw(Graphics g, int x1, int x2, int height, JComponent observer) {
+      if (volatileImage != null) {
+        if (volatileImage.contentsLost()) {
+          return false;
+        }
+        // Already in user space
+        g.drawImage(volatileImage, x1, 0, x2, height, x1, 0, x2, height, observer);
+        return true;
+      }
+      if (bufferedImage == null) {
+        return false;
+      }
+      final int sx1 = Math.min(deviceWidth, toDevice(x1, scaleX));
+      final int sx2 = Math.min(deviceWidth, toDevice(x2, scaleX));
+      final int sy2 = Math.min(deviceHeight, toDevice(height, scaleY));
+      g.drawImage(bufferedImage, x1, 0, x2, height, sx1, 0, sx2, sy2, observer);
+      return true;
+    }
+
+    private static int toDevice(int userSpace, double scale) {
+      //noinspection NumericCastThatLosesPrecision
+      return (int) Math.round(userSpace * scale);
+    }
   }
 
   /**
@@ -1,16 +1,25 @@
 package com.neptunedreams.framework.ui;
 
+import java.awt.AlphaComposite;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Container;
 import java.awt.FlowLayout;
+import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Paint;
 import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.image.FilteredImageSource;
 import java.awt.image.ImageProducer;
 import java.awt.image.RGBImageFilter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import javax.swing.AbstractButton;
 import javax.swing.Action;
@@ -47,6 +56,13 @@ public enum TangoUtils {
    */
   public static final int HILIGHT_COLOR = 132;
 
+  private static final int HUE_CACHE_SIZE = 1024; // must be a power of two
+
+  // Icons made by recolor() and shiftHue(), by original icon, then by color or shift. ImageIcon uses identity for
+  // equals(), so the outer maps are keyed on the instance, and the made icons don't refer back to their originals.
+  private static final Map<ImageIcon, Map<Integer, ImageIcon>> recolorCache = new WeakHashMap<>();
+  private static final Map<ImageIcon, Map<Integer, ImageIcon>> shiftHueCache = new WeakHashMap<>();
+
   /**
    * Wrap the specified component into the east side (Actually, the line-end side) of a new JPanel.
    * @param component The component to wrap
@@ -277,82 +293,136 @@ public enum TangoUtils {
   /**
    * Recolor an Icon. This grays out the icon, then applies the given color to the different
    * gray levels to produce new colors of the same hue.
+   * <p>
+   * Recolored icons are cached, so recoloring the same icon with the same color again returns the same instance. 
+   * Don't modify the returned icon.
    *
    * @param rawIcon The icon to recolor
    * @param color   The color to give it.
    * @return A new Icon that looks like the old one, but is entirely of the new color.
+   * @see #clearRecolorCache()
    */
   public static ImageIcon recolor(ImageIcon rawIcon, final Color color) {
-    @SuppressWarnings("UseOfClone") RGBImageFilter filter = new RGBImageFilter() {
-      /**
-       * Overrides {@code RGBImageFilter.filterRGB}.
-       */
-      @SuppressWarnings({"NumericCastThatLosesPrecision", "MagicNumber"})
-      @Override
-      public int filterRGB(int x, int y, int rgb) {
-        // This is adapted from the javax.swing.GrayFilter class, which uses the NTSC formula to gray out a color.
-
-        // The NTSC formula to gray out a color applies r*0.3, g*0.59, and b*0.11, to get
-        // a new value that is used for R, G, and B. I raise those three constants by a
-        // factor of 0.4 according to this formula: c' = (1-c)*r + c, where r is 0.4.
-        // This reduces to c' = r - r*c + c. Applying that gives me the three values used below.
-        int gray = (int) (((0.580 * ((rgb >> 16) & 0xff)) +
-            (0.754 * ((rgb >> 8) & 0xff)) +
-            (0.466 * (rgb & 0xff))) / 3);
-
-        if (gray < 0) { gray = 0; }
-        // Now that we have a gray, use the input color to produce a new color of the same hue.
-        int red = (gray * color.getRed()) / 100;
-        int green = (gray * color.getGreen()) / 100;
-        int blue = (gray * color.getBlue()) / 100;
-        if (red > 255) { red = 255; }
-        if (green > 255) { green = 255; }
-        if (blue > 255) { blue = 255; }
-        //noinspection OverlyComplexBooleanExpression
-        return (rgb & 0xff000000) | (red << 16) | (green << 8) | blue;
-      }
+    return cachedIcon(recolorCache, rawIcon, color.getRGB(), () -> filterPixels(rawIcon, pixels -> recolorPixels(pixels, color)));
+  }
 
-      @SuppressWarnings("UseOfClone")
-      @Override
-      public RGBImageFilter clone() {
-        return (RGBImageFilter) super.clone();
-      }
-    };
-    ImageProducer prod = new FilteredImageSource(rawIcon.getImage().getSource(), filter);
-    Image coloredImage = Toolkit.getDefaultToolkit().createImage(prod);
-    return new ImageIcon(coloredImage);
+  @SuppressWarnings({"NumericCastThatLosesPrecision", "MagicNumber"})
+  private static void recolorPixels(int[] pixels, Color color) {
+    // This is adapted from the javax.swing.GrayFilter class, which uses the NTSC formula to gray out a color.
+
+    // The NTSC formula to gray out a color applies r*0.3, g*0.59, and b*0.11, to get
+    // a new value that is used for R, G, and B. I raise those three constants by a
+    // factor of 0.4 according to this formula: c' = (1-c)*r + c, where r is 0.4.
+    // This reduces to c' = r - r*c + c. Applying that gives me the three values used below.
+    // The gray level can't exceed (0.580 + 0.754 + 0.466) * 255 / 3, so the new colors for every gray level are 
+    // worked out once, up front.
+    int[] colorOfGray = new int[((int) ((1.8 * 255) / 3)) + 1];
+    for (int gray = 0; gray < colorOfGray.length; ++gray) {
+      // Use the input color to produce a new color of the same hue.
+      int red = Math.min((gray * color.getRed()) / 100, 255);
+      int green = Math.min((gray * color.getGreen()) / 100, 255);
+      int blue = Math.min((gray * color.getBlue()) / 100, 255);
+      colorOfGray[gray] = (red << 16) | (green << 8) | blue;
+    }
+    for (int i = 0; i < pixels.length; ++i) {
+      final int rgb = pixels[i];
+      int gray = (int) (((0.580 * ((rgb >> 16) & 0xff)) +
+          (0.754 * ((rgb >> 8) & 0xff)) +
+          (0.466 * (rgb & 0xff))) / 3);
+      pixels[i] = (rgb & 0xff000000) | colorOfGray[gray];
+    }
   }
 
   /**
    * Shift the hue of an image by a specified amount. To shift from red to green or green to blue, use a shift of 85. 
    * To shift in the opposite direction, use 170.
+   * <p>
+   * Shifted icons are cached, so shifting the same icon by the same amount again returns the same instance. 
+   * Don't modify the returned icon.
    * @param rawIcon The original icon to recolor.
    * @param shift The amount to shift the hue, where 0 or 256 leave the hue unchanged. 
    * @return A recolored icon.
+   * @see #clearRecolorCache()
    */
-  @SuppressWarnings("CloneableClassWithoutClone")
   public static ImageIcon shiftHue(ImageIcon rawIcon, final int shift) {
+    return cachedIcon(shiftHueCache, rawIcon, shift, () -> filterPixels(rawIcon, pixels -> shiftHuePixels(pixels, shift)));
+  }
+
+  @SuppressWarnings("MagicNumber")
+  private static void shiftHuePixels(int[] pixels, int shift) {
+    // Icons use few distinct colors, and the HSB conversions are slow, so each color is converted only once. This is 
+    // a direct-mapped cache, where a colliding color just replaces the old one. Keys are RGB values without alpha, so 
+    // -1 marks an empty slot.
+    int[] keys = new int[HUE_CACHE_SIZE];
+    int[] values = new int[HUE_CACHE_SIZE];
+    Arrays.fill(keys, -1);
     float[] hsb = new float[3];
-    RGBImageFilter filter = new RGBImageFilter() {
-      @SuppressWarnings("MagicNumber")
-      @Override
-      public int filterRGB(int x, int y, int rgb) {
-        int red = (0xff_0000 & rgb) >> 16;
-        int grn = (0x00_ff00 & rgb) >> 8;
-        int blu = (0x00_00ff & rgb);
-        int alpha = 0xff000000 & rgb; 
-        Color.RGBtoHSB(red, grn, blu, hsb);
+    for (int i = 0; i < pixels.length; ++i) {
+      final int rgb = pixels[i];
+      final int color = rgb & 0x00ff_ffff;
+      final int slot = (color ^ (color >>> 11)) & (HUE_CACHE_SIZE - 1);
+      if (keys[slot] != color) {
+        Color.RGBtoHSB(color >> 16, (color >> 8) & 0xff, color & 0xff, hsb);
         @SuppressWarnings("NumericCastThatLosesPrecision")
         int hue = (int) (hsb[0] * 256);
         float newHue = ((hue + shift) % 256) / 256.0F;
+        keys[slot] = color;
         // HSBtoRGB creates a color with an alpha of 0xFF
-        final int newColor = Color.HSBtoRGB(newHue, hsb[1], hsb[2]) & 0x00ff_ffff; // strip out alpha value of 0xFF
-        return alpha | newColor;
+        values[slot] = Color.HSBtoRGB(newHue, hsb[1], hsb[2]) & 0x00ff_ffff; // strip out alpha value of 0xFF
       }
-    };
-    ImageProducer prod = new FilteredImageSource(rawIcon.getImage().getSource(), filter);
-    Image coloredImage = Toolkit.getDefaultToolkit().createImage(prod);
-    return new ImageIcon(coloredImage);
+      pixels[i] = (rgb & 0xff000000) | values[slot];
+    }
+  }
+
+  /**
+   * Clears the cache of icons made by {@link #recolor(ImageIcon, Color)} and {@link #shiftHue(ImageIcon, int)}. 
+   * Entries are also removed automatically once their original icons are no longer used.
+   */
+  public static void clearRecolorCache() {
+    synchronized (recolorCache) {
+      recolorCache.clear();
+    }
+    synchronized (shiftHueCache) {
+      shiftHueCache.clear();
+    }
+  }
+
+  private static ImageIcon cachedIcon(Map<ImageIcon, Map<Integer, ImageIcon>> cache, ImageIcon rawIcon, int key,
+                                      Supplier<ImageIcon> maker) {
+    synchronized (cache) {
+      final ImageIcon cached = cache.getOrDefault(rawIcon, Map.of()).get(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    // Make the icon outside the lock. If two threads race, they make equivalent icons and the last one is kept.
+    ImageIcon icon = maker.get();
+    synchronized (cache) {
+      cache.computeIfAbsent(rawIcon, i -> new HashMap<>()).put(key, icon);
+    }
+    return icon;
+  }
+
+  /**
+   * Draws the icon's image into an ARGB raster, applies the filter to the whole pixel array at once, and wraps the 
+   * result in a new icon.
+   */
+  private static ImageIcon filterPixels(ImageIcon rawIcon, Consumer<int[]> filter) {
+    final int width = rawIcon.getIconWidth();
+    final int height = rawIcon.getIconHeight();
+    if ((width <= 0) || (height <= 0)) {
+      return new ImageIcon(rawIcon.getImage()); // The image didn't load, so there's nothing to filter.
+    }
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2 = image.createGraphics();
+    try {
+      g2.setComposite(AlphaComposite.Src);
+      g2.drawImage(rawIcon.getImage(), 0, 0, null);
+    } finally {
+      g2.dispose();
+    }
+    filter.accept(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+    return new ImageIcon(image);
   }
 
   /**
@@ -11,6 +11,7 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.event.CaretEvent;
 import javax.swing.event.CaretListener;
+import javax.swing.text.Caret;
 import javax.swing.text.JTextComponent;
 
 import org.jetbrains.annotations.NotNull;
@@ -38,28 +39,41 @@ public enum UIMenus implements CaretListener {
   private final MenuAction pasteAction = new ClipboardAction("Paste", 'V', JTextComponent::paste);
 
   UIMenus() {
-    PropertyChangeListener focusListener = evt -> {
-//      Component permFocusOwner = focusManager.getPermanentFocusOwner();
-      Component permFocusOwner = (Component) evt.getNewValue();
-      //noinspection ObjectEquality
-      if (permFocusOwner != caretOwner) {
-        if (caretOwner != null) {
-          removeCaretListener(caretOwner);
-          @SuppressWarnings("dereference.of.nullable") // makes no sense. caretOwner can't be null!
-          final String text = caretOwner.getText();
-//          System.out.printf("deFocus c with %s to %s%n", text, (permFocusOwner == null) ? "None" : permFocusOwner.getClass().toString());
-        }
-        if (permFocusOwner instanceof JTextComponent) {
-          caretOwner = (JTextComponent) permFocusOwner;
-          addCaretListener(caretOwner);
-          @SuppressWarnings("dereference.of.nullable") // makes no sense. caretOwner can't be null!
-          final String text = caretOwner.getText();
-//          System.out.printf("Focus c with %s%n", text);
-        }
-      }
-    };
+    PropertyChangeListener focusListener = evt -> permanentFocusChanged((Component) evt.getNewValue());
     focusManager.addPropertyChangeListener("permanentFocusOwner", focusListener);
   }
+
+  /**
+   * Keeps the caret listener on the text component with the permanent focus, and updates the actions to match its
+   * selection. This runs on every focus change, so it must not do anything that depends on the size of the
+   * document, like calling getText().
+   * @param permFocusOwner The new permanent focus owner, or null
+   */
+  void permanentFocusChanged(@Nullable Component permFocusOwner) {
+    final JTextComponent priorOwner = caretOwner;
+    //noinspection ObjectEquality
+    if (permFocusOwner == priorOwner) {
+      return;
+    }
+    if (priorOwner != null) {
+      removeCaretListener(priorOwner);
+    }
+    if (permFocusOwner instanceof JTextComponent textComponent) {
+      caretOwner = textComponent;
+      addCaretListener(textComponent);
+      final Caret caret = textComponent.getCaret();
+      updateActions(textComponent, (caret != null) && (caret.getDot() != caret.getMark()));
+    } else {
+      // Forget the prior owner, so its listener gets restored if it gets the focus back.
+      caretOwner = null;
+    }
+  }
+
+  /**
+   * Gets the text component with the permanent focus, as last seen by the focus listener.
+   * @return the text component, or null if the focus isn't in a text component
+   */
+  @Nullable JTextComponent getCaretOwner() { return caretOwner; }
   
   private final class ClipboardAction extends MenuAction {
     private final Consumer<JTextComponent> operation;
@@ -111,11 +125,18 @@ public enum UIMenus implements CaretListener {
   public void caretUpdate(final CaretEvent e) {
     boolean selectionPresent = e.getDot() != e.getMark();
 //    System.out.printf("Selection %b from %d =? %d%n", selectionPresent, e.getDot(), e.getMark());
-    cutAction.setEnabled(selectionPresent);
-    copyAction.setEnabled(selectionPresent);
     // Untested
     if (e.getSource() instanceof JTextComponent textComponent) {
-      pasteAction.setEnabled(textComponent.isEditable());
+      updateActions(textComponent, selectionPresent);
+    } else {
+      cutAction.setEnabled(selectionPresent);
+      copyAction.setEnabled(selectionPresent);
     }
   }
+
+  private void updateActions(JTextComponent textComponent, boolean selectionPresent) {
+    cutAction.setEnabled(selectionPresent);
+    copyAction.setEnabled(selectionPresent);
+    pasteAction.setEnabled(textComponent.isEditable());
+  }
 }
@@ -0,0 +1,69 @@
+package com.neptunedreams.framework.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the SampleBus class, which EventBusFacadeProcessor generates from {@link SampleEvents} when the tests are
+ * compiled.
+ *
+ * @author Miguel Muñoz
+ */
+public class EventBusFacadeTest {
+  @Test
+  public void testGeneratedFacade() {
+    List<String> received = new ArrayList<>();
+    SampleEvents handler = new SampleEvents() {
+      @Override
+      public void recordLoaded(String record) {
+        received.add("loaded " + record);
+      }
+
+      @Override
+      public void recordsFound(List<String> records, int total) {
+        received.add("found " + total);
+      }
+
+      @Override
+      public void tagged(String... tags) {
+        received.add("tags " + tags.length);
+      }
+
+      @Override
+      public void renamed(Map.Entry<String, String> e, int i, String handlers, String logger) {
+        received.add("renamed " + e.getKey() + i + handlers + logger);
+      }
+    };
+    SampleEvents failingHandler = new SampleEvents() {
+      @Override
+      public void recordLoaded(String record) {
+        throw new IllegalStateException("Expected exception from test handler");
+      }
+
+      @Override
+      public void recordsFound(List<String> records, int total) { }
+    };
+
+    SampleBus.registerSampleBusHandler(failingHandler);
+    SampleBus.registerSampleBusHandler(handler);
+    try {
+      SampleBus.postRecordLoaded("alpha");
+      SampleBus.postRecordsFound(List.of("a", "b"), 2);
+      SampleBus.postSearchNow();
+      SampleBus.postTagged("x", "y", "z");
+      SampleBus.postRenamed(Map.entry("k", "v"), 1, "h", "l");
+      assertEquals(List.of("loaded alpha", "found 2", "tags 3", "renamed k1hl"), received);
+
+      SampleBus.unregisterSampleBusHandler(handler);
+      SampleBus.postRecordLoaded("beta");
+      assertEquals(4, received.size());
+    } finally {
+      SampleBus.unregisterSampleBusHandler(handler);
+      SampleBus.unregisterSampleBusHandler(failingHandler);
+    }
+  }
+}
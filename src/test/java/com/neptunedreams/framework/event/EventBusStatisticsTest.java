@@ -0,0 +1,94 @@
+package com.neptunedreams.framework.event;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import com.google.common.eventbus.Subscribe;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class EventBusStatisticsTest {
+
+  @Test
+  public void testCountsAndTimings() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    dispatcher.register(new Handler());
+    EventBusStatistics statistics = dispatcher.startInstrumentation();
+    dispatcher.post("one");
+    dispatcher.post("two");
+    dispatcher.post(3L); // Nobody subscribes to Long
+
+    Map<String, Long> postCounts = statistics.getPostCounts();
+    assertEquals(Long.valueOf(2), postCounts.get(String.class.getName()));
+    assertEquals(Long.valueOf(1), postCounts.get(Long.class.getName()));
+    assertEquals(Map.of(Long.class.getName(), 1L), statistics.getDeadEventCounts());
+
+    List<SubscriberTiming> timings = statistics.getSubscriberTimings();
+    assertEquals(1, timings.size());
+    SubscriberTiming timing = timings.get(0);
+    assertEquals(2, timing.getCount());
+    assertEquals(String.class.getName(), timing.getEventType());
+    assertTrue(timing.getSubscriber().endsWith("Handler.receive"));
+    assertEquals(2, sum(timing.getHistogram()));
+    assertEquals(timing.getBucketLimitsMicros().length + 1, timing.getHistogram().length);
+
+    statistics.reset();
+    assertTrue(statistics.getPostCounts().isEmpty());
+    assertEquals(0, statistics.getSubscriberTimings().get(0).getCount());
+
+    dispatcher.stopInstrumentation();
+    dispatcher.post("three");
+    assertTrue(statistics.getPostCounts().isEmpty());
+  }
+
+  @Test
+  public void testBuckets() {
+    assertEquals(0, SubscriberTiming.bucketFor(5_000L));         // 5 microseconds
+    assertEquals(3, SubscriberTiming.bucketFor(2_000_000L));     // 2 milliseconds
+    assertEquals(5, SubscriberTiming.bucketFor(20_000_000L));    // 20 milliseconds: more than a frame
+    assertEquals(8, SubscriberTiming.bucketFor(2_000_000_000L)); // 2 seconds
+  }
+
+  @Test
+  public void testMXBean() throws Exception {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    dispatcher.register(new Handler());
+    EventBusStatistics statistics = dispatcher.startInstrumentation();
+    dispatcher.post("jmx");
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("com.neptunedreams.framework.event:type=EventBusStatistics,name=test");
+    server.registerMBean(statistics, name);
+    try {
+      TabularData postCounts = (TabularData) server.getAttribute(name, "PostCounts");
+      assertEquals(1, postCounts.size());
+      CompositeData[] timings = (CompositeData[]) server.getAttribute(name, "SubscriberTimings");
+      assertEquals(1, timings.length);
+      assertEquals(1L, timings[0].get("count"));
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+
+  private static long sum(long[] values) {
+    long total = 0;
+    for (long value : values) {
+      total += value;
+    }
+    return total;
+  }
+
+  @SuppressWarnings("unused")
+  public static class Handler {
+    @Subscribe
+    public void receive(String event) { }
+  }
+}
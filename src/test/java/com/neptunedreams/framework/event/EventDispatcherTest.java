@@ -0,0 +1,336 @@
+package com.neptunedreams.framework.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class EventDispatcherTest {
+
+  @Test
+  public void testSynchronousDelivery() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    Recorder recorder = new Recorder(dispatcher);
+    dispatcher.register(recorder);
+    dispatcher.post("alpha");
+    dispatcher.post(7);
+
+    // The String goes to the String and Object subscribers. The Integer only goes to the Object subscriber.
+    assertEquals(List.of("String:alpha", "Object:alpha", "Object:7"), recorder.received);
+  }
+
+  @Test
+  public void testNestedPostsAreDeliveredInOrder() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    Recorder recorder = new Recorder(dispatcher);
+    dispatcher.register(recorder);
+    dispatcher.post("repost");
+
+    // The event posted by the String subscriber waits until "repost" has reached the Object subscriber.
+    assertEquals(List.of("String:repost", "Object:repost", "String:reposted", "Object:reposted"), recorder.received);
+  }
+
+  @Test
+  public void testLateRegistration() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    Recorder first = new Recorder(dispatcher);
+    dispatcher.register(first);
+    dispatcher.post("one"); // Builds the dispatch table for String.
+    Recorder second = new Recorder(dispatcher);
+    dispatcher.register(second);
+    dispatcher.post("two");
+    assertEquals(List.of("String:one", "Object:one", "String:two", "Object:two"), first.received);
+    assertEquals(List.of("String:two", "Object:two"), second.received);
+  }
+
+  @Test
+  public void testSubscriberException() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    Recorder recorder = new Recorder(dispatcher);
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void fail(String event) {
+        throw new IllegalStateException("Expected exception from test subscriber");
+      }
+    });
+    dispatcher.register(recorder);
+    dispatcher.post("still delivered");
+    assertEquals(List.of("String:still delivered", "Object:still delivered"), recorder.received);
+  }
+
+  @Test
+  public void testSubscriberThrowable() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    Recorder recorder = new Recorder(dispatcher);
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void fail(String event) throws OddThrowable {
+        throw new OddThrowable();
+      }
+    });
+    dispatcher.register(recorder);
+    dispatcher.post("still delivered");
+    assertEquals(List.of("String:still delivered", "Object:still delivered"), recorder.received);
+  }
+
+  @Test
+  public void testAsyncWorkerSurvivesError() throws InterruptedException {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    CountDownLatch delivered = new CountDownLatch(1);
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void receive(String event) {
+        if (event.equals("fail")) {
+          throw new AssertionError("Expected error from test subscriber");
+        }
+        delivered.countDown();
+      }
+    });
+    dispatcher.startAsync(1, 1, BackPressure.BLOCK);
+    try {
+      dispatcher.post("fail");
+      dispatcher.post("after");
+      assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    } finally {
+      dispatcher.stopAsync();
+    }
+  }
+
+  /** Neither an Exception nor an Error. */
+  private static final class OddThrowable extends Throwable {
+    OddThrowable() {
+      super("Expected throwable from test subscriber");
+    }
+  }
+
+  @Test
+  public void testDeadEvent() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    List<Object> deadEvents = new ArrayList<>();
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void dead(DeadEvent deadEvent) {
+        deadEvents.add(deadEvent.getEvent());
+      }
+    });
+    dispatcher.post("nobody listens");
+    assertEquals(List.of("nobody listens"), deadEvents);
+  }
+
+  @Test
+  public void testDeliverOnEdt() throws InterruptedException {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    CountDownLatch delivered = new CountDownLatch(1);
+    AtomicBoolean onEdt = new AtomicBoolean(false);
+    dispatcher.register(new Object() {
+      @Subscribe
+      @DeliverOnEdt
+      public void edtOnly(String event) {
+        onEdt.set(SwingUtilities.isEventDispatchThread());
+        delivered.countDown();
+      }
+    });
+    dispatcher.post("to the EDT");
+    assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    assertTrue(onEdt.get());
+  }
+
+  @Test
+  public void testAsyncDelivery() throws InterruptedException {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    CountDownLatch delivered = new CountDownLatch(3);
+    List<String> threads = Collections.synchronizedList(new ArrayList<>());
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void receive(Integer event) {
+        threads.add(Thread.currentThread().getName());
+        delivered.countDown();
+      }
+    });
+    AsyncMetrics metrics = dispatcher.startAsync(10, 1, BackPressure.BLOCK);
+    dispatcher.post(1);
+    dispatcher.post(2);
+    dispatcher.post(3);
+    assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    dispatcher.stopAsync();
+    assertEquals(3, metrics.getDispatchedCount());
+    assertEquals(10, metrics.getQueueCapacity());
+    for (String thread : threads) {
+      assertNotEquals(Thread.currentThread().getName(), thread);
+    }
+  }
+
+  @Test
+  public void testBackPressure() throws InterruptedException {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    CountDownLatch gate = new CountDownLatch(1);
+    CountDownLatch firstArrived = new CountDownLatch(1);
+    List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void receive(Integer event) throws InterruptedException {
+        firstArrived.countDown();
+        gate.await(); // Hold the worker, so the queue fills up.
+        received.add(event);
+      }
+    });
+    AsyncMetrics metrics = dispatcher.startAsync(2, 1, BackPressure.DROP_NEWEST);
+    dispatcher.post(0);
+    assertTrue(firstArrived.await(5, TimeUnit.SECONDS));
+    dispatcher.post(1);
+    dispatcher.post(2);
+    dispatcher.post(3); // Queue is full.
+    assertEquals(1, metrics.getDroppedCount());
+    assertEquals(2, metrics.getQueueDepth());
+    gate.countDown();
+    dispatcher.stopAsync();
+    // The worker finishes its event before the queued ones are delivered.
+    assertEquals(List.of(0, 1, 2), received);
+  }
+
+  @Test
+  public void testBlockedPosterSurvivesStop() throws InterruptedException {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    CountDownLatch gate = new CountDownLatch(1);
+    CountDownLatch firstArrived = new CountDownLatch(1);
+    List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void receive(Integer event) throws InterruptedException {
+        firstArrived.countDown();
+        gate.await();
+        received.add(event);
+      }
+    });
+    dispatcher.startAsync(1, 1, BackPressure.BLOCK);
+    dispatcher.post(0);
+    assertTrue(firstArrived.await(5, TimeUnit.SECONDS));
+    dispatcher.post(1); // Fills the queue
+    Thread poster = new Thread(() -> dispatcher.post(2));
+    poster.start();
+    while (poster.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    Thread stopper = new Thread(dispatcher::stopAsync);
+    stopper.start();
+    gate.countDown();
+    stopper.join(5000);
+    poster.join(5000);
+    assertEquals(List.of(0, 1, 2), received);
+  }
+
+  @Test
+  public void testDuplicateRegistration() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    Recorder recorder = new Recorder(dispatcher);
+    dispatcher.register(recorder);
+    dispatcher.register(recorder);
+    dispatcher.post("once");
+    assertEquals(List.of("String:once", "Object:once"), recorder.received);
+  }
+
+  @Test
+  public void testSubscribersAreSerialized() throws InterruptedException {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    AtomicInteger active = new AtomicInteger();
+    AtomicBoolean overlapped = new AtomicBoolean(false);
+    CountDownLatch delivered = new CountDownLatch(20);
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void receive(Integer event) throws InterruptedException {
+        if (active.incrementAndGet() > 1) {
+          overlapped.set(true);
+        }
+        Thread.sleep(1);
+        active.decrementAndGet();
+        delivered.countDown();
+      }
+    });
+    dispatcher.startAsync(20, 4, BackPressure.BLOCK);
+    for (int i = 0; i < 20; ++i) {
+      dispatcher.post(i);
+    }
+    assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    dispatcher.stopAsync();
+    assertFalse(overlapped.get());
+  }
+
+  @Test
+  public void testCoalescing() throws Exception {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    Recorder recorder = new Recorder(dispatcher);
+    dispatcher.register(recorder);
+    dispatcher.coalesce(String.class, 0);
+    SwingUtilities.invokeAndWait(() -> {
+      dispatcher.post("first");
+      dispatcher.post("second");
+      dispatcher.post("third");
+      dispatcher.post(4); // Integers aren't coalesced.
+      dispatcher.post(5);
+    });
+    SwingUtilities.invokeAndWait(() -> { }); // Wait for the flush.
+    assertEquals(List.of("Object:4", "Object:5", "String:third", "Object:third"), recorder.received);
+
+    dispatcher.stopCoalescing(String.class);
+    dispatcher.post("uncoalesced");
+    assertEquals("Object:uncoalesced", recorder.received.get(recorder.received.size() - 1));
+  }
+
+  @Test
+  public void testCoalescingWindow() throws InterruptedException {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    List<String> received = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch delivered = new CountDownLatch(1);
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void receive(String event) {
+        received.add(event);
+        delivered.countDown();
+      }
+    });
+    dispatcher.coalesce(String.class, 50);
+    for (int i = 0; i < 10; ++i) {
+      dispatcher.post("event " + i);
+    }
+    assertTrue(received.isEmpty());
+    assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of("event 9"), received);
+  }
+
+  @SuppressWarnings("unused")
+  public static class Recorder {
+    private final EventDispatcher dispatcher;
+    final List<String> received = new ArrayList<>();
+
+    Recorder(EventDispatcher dispatcher) {
+      this.dispatcher = dispatcher;
+    }
+
+    @Subscribe
+    public void onString(String event) {
+      received.add("String:" + event);
+      if ("repost".equals(event)) {
+        dispatcher.post("reposted");
+      }
+    }
+
+    @Subscribe
+    public void onObject(Object event) {
+      if (!(event instanceof DeadEvent)) {
+        received.add("Object:" + event);
+      }
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.neptunedreams.framework.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class RecordChangeChannelTest {
+  @Test
+  public void testTypedDelivery() {
+    RecordChangeChannel channel = new RecordChangeChannel();
+    assertFalse(channel.hasHandlers());
+    List<String> strings = new ArrayList<>();
+    List<Object> objects = new ArrayList<>();
+    channel.register(String.class, strings::add);
+    channel.register(Object.class, objects::add);
+    assertTrue(channel.hasHandlers());
+
+    assertTrue(channel.deliver("record"));
+    assertTrue(channel.deliver(42));
+    assertEquals(List.of("record"), strings);
+    assertEquals(List.of("record", 42), objects);
+  }
+
+  @Test
+  public void testUnmatchedRecord() {
+    RecordChangeChannel channel = new RecordChangeChannel();
+    List<String> strings = new ArrayList<>();
+    channel.register(String.class, strings::add);
+    assertFalse(channel.deliver(42));
+    assertTrue(strings.isEmpty());
+  }
+
+  @Test
+  public void testHandlersRunBeforeSubscribers() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    RecordChangeChannel channel = new RecordChangeChannel();
+    List<String> received = new ArrayList<>();
+    channel.register(String.class, r -> received.add("handler:" + r));
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void changed(ChangeRecord<?> changeRecord) {
+        received.add("subscriber:" + changeRecord.getNewRecord());
+      }
+    });
+    MasterEventBus.postChangeRecord(dispatcher, channel, "a");
+    assertEquals(List.of("handler:a", "subscriber:a"), received);
+  }
+
+  @Test
+  public void testNestedPostKeepsOrder() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    RecordChangeChannel channel = new RecordChangeChannel();
+    List<String> received = new ArrayList<>();
+    channel.register(String.class, r -> received.add("handler:" + r));
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void integer(Integer i) {
+        MasterEventBus.postChangeRecord(dispatcher, channel, "nested");
+        received.add("integer:" + i);
+      }
+
+      @Subscribe
+      public void changed(ChangeRecord<?> changeRecord) {
+        received.add("subscriber:" + changeRecord.getNewRecord());
+      }
+    });
+    dispatcher.post(1);
+
+    // The nested record waits until the event being dispatched is done, then goes to the handler and the
+    // subscribers together, just as it would if the handler were a subscriber.
+    assertEquals(List.of("integer:1", "handler:nested", "subscriber:nested"), received);
+  }
+
+  @Test
+  public void testPostFromHandler() {
+    // Direct delivery, then through a ChangeRecord because the dispatcher is instrumented. The order is the same.
+    assertEquals(List.of("handler:a", "subscriber:a", "posted:1"), postFromHandler(false));
+    assertEquals(List.of("handler:a", "subscriber:a", "posted:1"), postFromHandler(true));
+  }
+
+  private static List<String> postFromHandler(boolean instrumented) {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    RecordChangeChannel channel = new RecordChangeChannel();
+    List<String> received = new ArrayList<>();
+    channel.register(String.class, r -> {
+      received.add("handler:" + r);
+      dispatcher.post(1);
+    });
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void integer(Integer i) {
+        received.add("posted:" + i);
+      }
+
+      @Subscribe
+      public void changed(ChangeRecord<?> changeRecord) {
+        received.add("subscriber:" + changeRecord.getNewRecord());
+      }
+    });
+    if (instrumented) {
+      dispatcher.startInstrumentation();
+    }
+    MasterEventBus.postChangeRecord(dispatcher, channel, "a");
+    return received;
+  }
+
+  @Test
+  public void testAsyncHandlersRunOnWorker() throws InterruptedException {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    RecordChangeChannel channel = new RecordChangeChannel();
+    List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch delivered = new CountDownLatch(1);
+    channel.register(String.class, r -> {
+      threads.add(Thread.currentThread());
+      delivered.countDown();
+    });
+    dispatcher.startAsync(10, 1, BackPressure.BLOCK);
+    try {
+      MasterEventBus.postChangeRecord(dispatcher, channel, "a");
+      // Don't stop until the worker has it, since stopping drains the queue on this thread.
+      assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    } finally {
+      dispatcher.stopAsync();
+    }
+    assertEquals(1, threads.size());
+    assertNotSame(Thread.currentThread(), threads.get(0));
+  }
+
+  @Test
+  public void testUnhandledRecordIsDead() {
+    EventDispatcher dispatcher = new EventDispatcher("test");
+    RecordChangeChannel channel = new RecordChangeChannel();
+    channel.register(Integer.class, r -> fail());
+    List<Object> dead = new ArrayList<>();
+    dispatcher.register(new Object() {
+      @Subscribe
+      public void dead(DeadEvent deadEvent) {
+        dead.add(deadEvent.getEvent());
+      }
+    });
+
+    // Once directly, and once through a ChangeRecord because the dispatcher is instrumented.
+    MasterEventBus.postChangeRecord(dispatcher, channel, "a");
+    dispatcher.startInstrumentation();
+    MasterEventBus.postChangeRecord(dispatcher, channel, "b");
+    assertEquals(2, dead.size());
+    assertEquals("b", ((ChangeRecord<?>) dead.get(1)).getNewRecord());
+  }
+}
@@ -0,0 +1,23 @@
+package com.neptunedreams.framework.event;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An event interface for testing the facade generated by EventBusFacadeProcessor.
+ *
+ * @author Miguel Muñoz
+ */
+@EventBusFacade("SampleBus")
+public interface SampleEvents {
+  void recordLoaded(String record);
+
+  void recordsFound(List<String> records, int total);
+
+  default void searchNow() { }
+
+  default void tagged(String... tags) { }
+
+  // These parameter names match the locals and fields of the generated post method.
+  default void renamed(Map.Entry<String, String> e, int i, String handlers, String logger) { }
+}
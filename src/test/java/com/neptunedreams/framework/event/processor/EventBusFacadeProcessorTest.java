@@ -0,0 +1,99 @@
+package com.neptunedreams.framework.event.processor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compiles small event interfaces with the processor, to check the errors it reports.
+ *
+ * @author Miguel Muñoz
+ */
+public class EventBusFacadeProcessorTest {
+  @Test
+  public void testCheckedExceptionIsRejected() throws IOException {
+    List<String> errors = compile("""
+        @EventBusFacade
+        public interface Bad {
+          void saved(String name) throws java.io.IOException;
+          void loaded(String name) throws IllegalStateException;
+        }
+        """);
+    assertEquals(List.of("Event methods may not throw checked exceptions"), errors);
+  }
+
+  @Test
+  public void testInvalidEventsAreRejected() throws IOException {
+    List<String> errors = compile("""
+        @EventBusFacade
+        public interface Bad {
+          int counted();
+          <T> void typed(T value);
+        }
+        """);
+    assertEquals(List.of("Event methods must return void", "Event methods may not be generic"), errors);
+  }
+
+  @Test
+  public void testAnnotatedClassIsRejected() throws IOException {
+    List<String> errors = compile("""
+        @EventBusFacade
+        public abstract class Bad { }
+        """);
+    assertEquals(List.of("@EventBusFacade may only be applied to an interface"), errors);
+  }
+
+  @Test
+  public void testClashingParameterNamesCompile() throws IOException {
+    List<String> errors = compile("""
+        @EventBusFacade
+        public interface Bad {
+          void inner(java.util.Map.Entry<String, String> e, int i, String currentHandlers, String handlers, String logger);
+        }
+        """);
+    assertEquals(List.of(), errors);
+  }
+
+  private static List<String> compile(String body) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    Path outputDir = Files.createTempDirectory("facade");
+    //noinspection HardCodedStringLiteral
+    String source = "package sample;\nimport com.neptunedreams.framework.event.EventBusFacade;\n" + body;
+    List<String> options = List.of("-classpath", System.getProperty("java.class.path"), "-d", outputDir.toString(),
+        "-s", outputDir.toString());
+    JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null,
+        List.of(new StringSource("sample/Bad.java", source)));
+    task.setProcessors(List.of(new EventBusFacadeProcessor()));
+    task.call();
+    return diagnostics.getDiagnostics().stream()
+        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+        .map(d -> d.getMessage(Locale.ROOT))
+        .collect(Collectors.toList());
+  }
+
+  private static final class StringSource extends SimpleJavaFileObject {
+    private final String source;
+
+    StringSource(String path, String source) {
+      super(URI.create("string:///" + path), Kind.SOURCE);
+      this.source = source;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) { return source; }
+  }
+}
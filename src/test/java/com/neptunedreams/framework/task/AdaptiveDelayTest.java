@@ -0,0 +1,63 @@
+package com.neptunedreams.framework.task;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class AdaptiveDelayTest {
+  @Test
+  public void testStartsAtMaximum() {
+    AdaptiveDelay delay = new AdaptiveDelay(50, 800);
+    assertEquals(800, delay.getDelayMillis());
+    delay.recordInputGap(100);
+    assertEquals(800, delay.getDelayMillis()); // No call times yet, so no change.
+    assertEquals(1, delay.getInputGapCount());
+  }
+
+  @Test
+  public void testCheapTaskShrinksDelay() {
+    AdaptiveDelay delay = new AdaptiveDelay(50, 800);
+    for (int i = 0; i < 10; ++i) {
+      delay.recordInputGap(200);
+      delay.recordCallTime(0);
+    }
+    assertEquals(50, delay.getDelayMillis());
+    assertEquals(10, delay.getCallCount());
+  }
+
+  @Test
+  public void testExpensiveTaskStretchesDelay() {
+    AdaptiveDelay delay = new AdaptiveDelay(50, 800);
+    for (int i = 0; i < 10; ++i) {
+      delay.recordInputGap(200);
+      delay.recordCallTime(400);
+    }
+    assertEquals(300, delay.getDelayMillis()); // 1.5 times the typing gap
+    assertEquals(400.0, delay.getAverageCallMillis(), 0.001);
+    assertEquals(200.0, delay.getAverageInputGapMillis(), 0.001);
+  }
+
+  @Test
+  public void testBounds() {
+    AdaptiveDelay delay = new AdaptiveDelay(50, 250);
+    for (int i = 0; i < 10; ++i) {
+      delay.recordInputGap(240);
+      delay.recordCallTime(5000);
+    }
+    assertEquals(250, delay.getDelayMillis());
+
+    // Pauses don't count as typing.
+    long count = delay.getInputGapCount();
+    delay.recordInputGap(10_000);
+    assertEquals(count, delay.getInputGapCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadRange() {
+    //noinspection ResultOfObjectAllocationIgnored
+    new AdaptiveDelay(500, 100);
+  }
+}
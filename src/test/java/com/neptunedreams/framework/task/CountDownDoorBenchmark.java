@@ -0,0 +1,114 @@
+package com.neptunedreams.framework.task;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the cost of one full cycle of a reusable gate: arm it, open it, and pass through it. CountDownDoor gets
+ * re-armed with reset(), CountDownLatch has to be re-instantiated, and Phaser advances to its next phase.
+ * <p>
+ * The contended benchmarks run several threads against one shared door or latch. The countDown pair has four
+ * threads counting down at once. The doorCycle group has one thread resetting and opening the door while three
+ * others wait on it, so it measures how quickly waiters get released under contention.
+ * <p>
+ * This isn't run by the unit tests. Run its main() method from the IDE, or from the command line using the test
+ * classpath, after running {@code mvn test-compile}.
+ *
+ * @author Miguel Muñoz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountDownDoorBenchmark {
+  private final CountDownDoor door = new CountDownDoor(1);
+  private CountDownLatch latch = new CountDownLatch(1);
+  private final Phaser phaser = new Phaser(1);
+
+  @Benchmark
+  public long countDownDoorReset() throws InterruptedException {
+    door.reset(1);
+    door.countDown();
+    door.await();
+    return door.getCount();
+  }
+
+  @Benchmark
+  public long countDownLatchReinstantiate() throws InterruptedException {
+    latch = new CountDownLatch(1);
+    latch.countDown();
+    latch.await();
+    return latch.getCount();
+  }
+
+  @Benchmark
+  public int phaserAdvance() {
+    return phaser.awaitAdvance(phaser.arrive());
+  }
+
+  /** A door and a latch shared by all the threads of a benchmark. */
+  @State(Scope.Benchmark)
+  public static class Shared {
+    final CountDownDoor door = new CountDownDoor(Integer.MAX_VALUE);
+    final CountDownLatch latch = new CountDownLatch(Integer.MAX_VALUE);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long contendedDoorCountDown(Shared shared) {
+    shared.door.countDown();
+    return shared.door.getCount();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long contendedLatchCountDown(Shared shared) {
+    shared.latch.countDown();
+    return shared.latch.getCount();
+  }
+
+  /** The door shared by one group of doorCycle threads. */
+  @State(Scope.Group)
+  public static class Cycle {
+    final CountDownDoor door = new CountDownDoor(1);
+  }
+
+  @Benchmark
+  @Group("doorCycle")
+  @GroupThreads(1)
+  public long doorCycleOpener(Cycle cycle) {
+    cycle.door.reset(1);
+    cycle.door.countDown();
+    return cycle.door.getCount();
+  }
+
+  @Benchmark
+  @Group("doorCycle")
+  @GroupThreads(3)
+  public boolean doorCycleWaiter(Cycle cycle) throws InterruptedException {
+    // Timed, so the waiters can't hang when the opener stops at the end of an iteration.
+    return cycle.door.await(1, TimeUnit.MILLISECONDS);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CountDownDoorBenchmark.class.getSimpleName()).build()).run();
+  }
+}
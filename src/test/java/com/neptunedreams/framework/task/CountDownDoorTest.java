@@ -0,0 +1,260 @@
+package com.neptunedreams.framework.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Functional tests and stress tests for CountDownDoor. The stress tests run many short trials, each of which races a
+ * few threads against each other and checks that the outcome is one the door allows, in the manner of jcstress.
+ * @author Miguel Muñoz
+ */
+public class CountDownDoorTest {
+  private static final int TRIALS = 2000;
+  private final AtomicReference<@Nullable Throwable> racerFailure = new AtomicReference<>();
+
+  @After
+  public void checkRacers() {
+    Throwable failure = racerFailure.get();
+    if (failure != null) {
+      throw new AssertionError("Racing thread failed", failure);
+    }
+  }
+
+  @Test
+  public void testCountDownOpensDoor() throws InterruptedException {
+    CountDownDoor door = new CountDownDoor(2);
+    assertFalse(door.await(0, TimeUnit.MILLISECONDS));
+    door.countDown();
+    assertEquals(1, door.getCount());
+    assertFalse(door.await(0, TimeUnit.MILLISECONDS));
+    door.countDown();
+    assertEquals(0, door.getCount());
+    assertTrue(door.await(0, TimeUnit.MILLISECONDS));
+    door.countDown(); // No effect at zero
+    assertEquals(0, door.getCount());
+  }
+
+  @Test
+  public void testResetAfterExpiry() throws InterruptedException {
+    CountDownDoor door = new CountDownDoor(1);
+    door.countDown();
+    assertTrue(door.await(0, TimeUnit.MILLISECONDS));
+    door.reset(1);
+    assertEquals(1, door.getGeneration());
+    assertEquals(1, door.getCount());
+    assertFalse(door.await(10, TimeUnit.MILLISECONDS));
+    door.countDown();
+    assertTrue(door.await(0, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testResetReleasesOldGenerationWaiters() throws InterruptedException {
+    CountDownDoor door = new CountDownDoor(1);
+    CountDownLatch released = new CountDownLatch(3);
+    List<Thread> waiters = new ArrayList<>();
+    for (int i = 0; i < 3; ++i) {
+      Thread waiter = new Thread(() -> {
+        door.awaitUninterruptibly();
+        released.countDown();
+      });
+      waiters.add(waiter);
+      waiter.start();
+    }
+    waitUntilQueued(waiters);
+    door.reset(5);
+    assertTrue(released.await(5, TimeUnit.SECONDS));
+
+    // A thread arriving now waits for the new generation.
+    assertFalse(door.await(10, TimeUnit.MILLISECONDS));
+    assertEquals(5, door.getCount());
+  }
+
+  @Test
+  public void testGenerationBoundCountDown() {
+    CountDownDoor door = new CountDownDoor(2);
+    int oldGeneration = door.getGeneration();
+    door.reset(2);
+    assertFalse(door.countDown(oldGeneration));
+    assertEquals(2, door.getCount());
+    assertTrue(door.countDown(door.getGeneration()));
+    assertEquals(1, door.getCount());
+  }
+
+  @Test
+  public void testGenerationBoundCountDownReleasesWaiters() throws InterruptedException {
+    CountDownDoor door = new CountDownDoor(1);
+    CountDownLatch released = new CountDownLatch(1);
+    Thread waiter = new Thread(() -> {
+      door.awaitUninterruptibly();
+      released.countDown();
+    });
+    waiter.start();
+    waitUntilQueued(List.of(waiter));
+    assertTrue(door.countDown(door.getGeneration()));
+    assertTrue(released.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testInterruptedAwait() throws InterruptedException {
+    CountDownDoor door = new CountDownDoor(1);
+    AtomicInteger interrupted = new AtomicInteger();
+    Thread waiter = new Thread(() -> {
+      try {
+        door.await();
+      } catch (InterruptedException e) {
+        interrupted.incrementAndGet();
+      }
+    });
+    waiter.start();
+    waitUntilQueued(List.of(waiter));
+    waiter.interrupt();
+    waiter.join(5000);
+    assertEquals(1, interrupted.get());
+    assertEquals(1, door.getCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeReset() {
+    new CountDownDoor(1).reset(-1);
+  }
+
+  /**
+   * Races a countDown against an await. The waiter must always get through.
+   */
+  @Test
+  public void stressCountDownVersusAwait() throws Exception {
+    for (int trial = 0; trial < TRIALS; ++trial) {
+      CountDownDoor door = new CountDownDoor(1);
+      CyclicBarrier go = new CyclicBarrier(2);
+      Thread waiter = startRacer(go, () -> assertTrue(door.await(5, TimeUnit.SECONDS)));
+      go.await();
+      door.countDown();
+      waiter.join();
+    }
+  }
+
+  /**
+   * Races a reset against a waiter from the old generation. Whether the waiter arrives before or after the reset,
+   * a countDown on the new generation must release it, and it must never hang.
+   */
+  @Test
+  public void stressResetVersusAwait() throws Exception {
+    for (int trial = 0; trial < TRIALS; ++trial) {
+      CountDownDoor door = new CountDownDoor(1);
+      CyclicBarrier go = new CyclicBarrier(2);
+      Thread waiter = startRacer(go, () -> assertTrue(door.await(5, TimeUnit.SECONDS)));
+      go.await();
+      door.reset(1);
+      door.countDown();
+      waiter.join();
+    }
+  }
+
+  /**
+   * Resets the door while several threads are waiting on it, without counting down. The reset ends their generation,
+   * so every one of them must be released.
+   */
+  @Test
+  public void stressResetReleasesWaiters() throws Exception {
+    final int waiterCount = 3;
+    for (int trial = 0; trial < (TRIALS / 10); ++trial) {
+      CountDownDoor door = new CountDownDoor(1);
+      CyclicBarrier go = new CyclicBarrier(waiterCount + 1);
+      List<Thread> waiters = new ArrayList<>();
+      for (int i = 0; i < waiterCount; ++i) {
+        waiters.add(startRacer(go, () -> assertTrue(door.await(5, TimeUnit.SECONDS))));
+      }
+      go.await();
+      // The waiters use a timed await, so TIMED_WAITING means they're parked in the door, not in the barrier.
+      for (Thread waiter : waiters) {
+        while (waiter.getState() != Thread.State.TIMED_WAITING) {
+          //noinspection BusyWait
+          Thread.sleep(1);
+        }
+      }
+      door.reset(1);
+      for (Thread waiter : waiters) {
+        waiter.join(5000);
+        assertFalse(waiter.isAlive());
+      }
+      assertEquals(1, door.getCount());
+    }
+  }
+
+  /**
+   * Races several counting threads against each other. The count must reach exactly zero, and the door must open
+   * exactly once.
+   */
+  @Test
+  public void stressConcurrentCountDown() throws Exception {
+    final int threads = 4;
+    for (int trial = 0; trial < (TRIALS / 4); ++trial) {
+      CountDownDoor door = new CountDownDoor(threads);
+      CyclicBarrier go = new CyclicBarrier(threads);
+      List<Thread> racers = new ArrayList<>();
+      for (int i = 0; i < threads; ++i) {
+        racers.add(startRacer(go, door::countDown));
+      }
+      for (Thread racer : racers) {
+        racer.join();
+      }
+      assertEquals(0, door.getCount());
+      assertTrue(door.await(0, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  /**
+   * Races a stale generation-bound countDown against a reset. Whichever wins, the new generation's count must
+   * never be touched by the stale countDown.
+   */
+  @Test
+  public void stressStaleCountDownVersusReset() throws Exception {
+    for (int trial = 0; trial < TRIALS; ++trial) {
+      CountDownDoor door = new CountDownDoor(1);
+      int oldGeneration = door.getGeneration();
+      CyclicBarrier go = new CyclicBarrier(2);
+      Thread counter = startRacer(go, () -> door.countDown(oldGeneration));
+      go.await();
+      door.reset(3);
+      counter.join();
+      assertEquals(3, door.getCount());
+      assertEquals(oldGeneration + 1, door.getGeneration());
+    }
+  }
+
+  private interface Racer {
+    void race() throws Exception;
+  }
+
+  private Thread startRacer(CyclicBarrier go, Racer racer) {
+    Thread thread = new Thread(() -> {
+      try {
+        go.await();
+        racer.race();
+      } catch (Exception | AssertionError e) {
+        racerFailure.compareAndSet(null, e);
+      }
+    });
+    thread.start();
+    return thread;
+  }
+
+  private static void waitUntilQueued(List<Thread> threads) throws InterruptedException {
+    for (Thread thread : threads) {
+      while (thread.getState() != Thread.State.WAITING) {
+        //noinspection BusyWait
+        Thread.sleep(1);
+      }
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.neptunedreams.framework.task;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class ParameterizedCallableTest {
+  @Test
+  public void testTakeAndExchange() {
+    Echo echo = new Echo(null);
+    assertNull(echo.takeInputData());
+    assertNull(echo.exchangeInputData(1));
+    assertEquals(Integer.valueOf(1), echo.exchangeInputData(2)); // 1 was never taken, and is superseded.
+    assertEquals(Integer.valueOf(2), echo.takeInputData());
+    assertNull(echo.takeInputData()); // Each input is taken only once.
+    assertNull(echo.exchangeInputData(3));
+  }
+
+  @Test
+  public void testConcurrentHandOff() throws InterruptedException {
+    final int producers = 4;
+    final int perProducer = 20_000;
+    Echo echo = new Echo(null);
+    Set<Integer> seen = ConcurrentHashMap.newKeySet();
+    AtomicBoolean duplicate = new AtomicBoolean(false);
+    CountDownLatch producersDone = new CountDownLatch(producers);
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; ++p) {
+      final int base = p * perProducer;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < perProducer; ++i) {
+          record(echo.exchangeInputData(base + i), seen, duplicate);
+        }
+        producersDone.countDown();
+      }));
+    }
+    threads.add(new Thread(() -> {
+      while (producersDone.getCount() > 0) {
+        record(echo.takeInputData(), seen, duplicate);
+      }
+    }));
+    threads.forEach(Thread::start);
+    assertTrue(producersDone.await(30, TimeUnit.SECONDS));
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    record(echo.takeInputData(), seen, duplicate);
+
+    // Every input was either taken or superseded, exactly once.
+    assertFalse(duplicate.get());
+    Set<Integer> expected = new HashSet<>();
+    for (int i = 0; i < (producers * perProducer); ++i) {
+      expected.add(i);
+    }
+    assertEquals(expected, seen);
+  }
+
+  private static void record(Integer value, Set<Integer> seen, AtomicBoolean duplicate) {
+    if ((value != null) && !seen.add(value)) {
+      duplicate.set(true);
+    }
+  }
+
+  private static final class Echo extends ParameterizedCallable<Integer, Integer> {
+    Echo(Integer initialValue) {
+      super(initialValue);
+    }
+
+    @Override
+    public Integer call(Integer input) {
+      return input;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.neptunedreams.framework.task;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class QueuedTaskTest {
+  @Test
+  public void testNewerInputSupersedesOlder() throws InterruptedException {
+    List<String> results = new CopyOnWriteArrayList<>();
+    CountDownLatch delivered = new CountDownLatch(1);
+    ParameterizedCallable<String, String> task = new ParameterizedCallable<>(null) {
+      @Override
+      public String call(String input) {
+        return input.toUpperCase();
+      }
+    };
+    QueuedTask<String, String> queuedTask = new QueuedTask<>(200, task, result -> {
+      results.add(result);
+      delivered.countDown();
+    });
+    queuedTask.launch();
+    queuedTask.feedData("a");
+    queuedTask.feedData("ab");
+    queuedTask.feedData("abc");
+    assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of("ABC"), results);
+    assertEquals(2, queuedTask.getSupersededInputCount());
+  }
+}
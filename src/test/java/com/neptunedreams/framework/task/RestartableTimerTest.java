@@ -0,0 +1,175 @@
+package com.neptunedreams.framework.task;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class RestartableTimerTest {
+  @Test
+  public void testOperationRuns() throws InterruptedException {
+    CountDownLatch ran = new CountDownLatch(1);
+    RestartableTimer timer = new RestartableTimer(10, ran::countDown);
+    assertFalse(timer.isStarted());
+    timer.restart(); // Ignored, because the timer isn't started.
+    assertFalse(timer.isPending());
+
+    timer.start();
+    assertTrue(timer.isStarted());
+    timer.restart();
+    assertTrue(timer.isPending());
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+    assertFalse(timer.isPending());
+  }
+
+  @Test
+  public void testStop() throws InterruptedException {
+    BlockingQueue<Runnable> handedOff = new LinkedBlockingQueue<>();
+    AtomicInteger runCount = new AtomicInteger();
+    RestartableTimer timer = new RestartableTimer(10, runCount::incrementAndGet, handedOff::add);
+    timer.start();
+    timer.restart();
+    Runnable fired = handedOff.poll(5, TimeUnit.SECONDS);
+    assertNotNull(fired);
+
+    // Stopping after the timer fired, but before the operation ran, still cancels it.
+    timer.stop();
+    assertFalse(timer.isStarted());
+    assertFalse(timer.isPending());
+    fired.run();
+    assertEquals(0, runCount.get());
+
+    timer.restart(); // Ignored after stop()
+    assertFalse(timer.isPending());
+  }
+
+  @Test
+  public void testStaleRunIsDropped() throws InterruptedException {
+    BlockingQueue<Runnable> handedOff = new LinkedBlockingQueue<>();
+    AtomicInteger runCount = new AtomicInteger();
+    RestartableTimer timer = new RestartableTimer(10, runCount::incrementAndGet, handedOff::add);
+    timer.start();
+    timer.restart();
+    Runnable stale = handedOff.poll(5, TimeUnit.SECONDS);
+    assertNotNull(stale);
+
+    // The clock gets restarted after the first run left the scheduler.
+    timer.restart();
+    stale.run();
+    assertEquals(0, runCount.get());
+    assertTrue(timer.isPending());
+
+    Runnable current = handedOff.poll(5, TimeUnit.SECONDS);
+    assertNotNull(current);
+    current.run();
+    assertEquals(1, runCount.get());
+    assertFalse(timer.isPending());
+  }
+
+  @Test
+  public void testRestartWhileRunning() throws InterruptedException {
+    CountDownLatch firstRunning = new CountDownLatch(1);
+    CountDownLatch gate = new CountDownLatch(1);
+    CountDownLatch bothRan = new CountDownLatch(2);
+    AtomicInteger running = new AtomicInteger();
+    AtomicBoolean overlapped = new AtomicBoolean(false);
+    RestartableTimer timer = new RestartableTimer(10, () -> {
+      if (running.incrementAndGet() > 1) {
+        overlapped.set(true);
+      }
+      firstRunning.countDown();
+      try {
+        gate.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      running.decrementAndGet();
+      bothRan.countDown();
+    });
+    timer.start();
+    timer.restart();
+    assertTrue(firstRunning.await(5, TimeUnit.SECONDS));
+
+    // A restart while the operation runs schedules another run, which waits for the first one.
+    timer.restart();
+    assertTrue(timer.isPending());
+    Thread.sleep(50);
+    gate.countDown();
+    assertTrue(bothRan.await(5, TimeUnit.SECONDS));
+    assertFalse(overlapped.get());
+  }
+
+  @Test
+  public void testStopWhileWaitingForRunningOperation() throws InterruptedException {
+    BlockingQueue<Runnable> handedOff = new LinkedBlockingQueue<>();
+    CountDownLatch firstRunning = new CountDownLatch(1);
+    CountDownLatch gate = new CountDownLatch(1);
+    AtomicInteger runCount = new AtomicInteger();
+    RestartableTimer timer = new RestartableTimer(10, () -> {
+      runCount.incrementAndGet();
+      firstRunning.countDown();
+      try {
+        gate.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, handedOff::add);
+    timer.start();
+    timer.restart();
+    Runnable first = handedOff.poll(5, TimeUnit.SECONDS);
+    assertNotNull(first);
+    Thread firstThread = new Thread(first);
+    firstThread.start();
+    assertTrue(firstRunning.await(5, TimeUnit.SECONDS));
+
+    // The second run was current when it fired, but it's waiting for the first one to finish.
+    timer.restart();
+    Runnable second = handedOff.poll(5, TimeUnit.SECONDS);
+    assertNotNull(second);
+    Thread secondThread = new Thread(second);
+    secondThread.start();
+    while (secondThread.getState() != Thread.State.BLOCKED) {
+      //noinspection BusyWait
+      Thread.sleep(1);
+    }
+    timer.stop();
+    gate.countDown();
+    firstThread.join(5000);
+    secondThread.join(5000);
+    assertEquals(1, runCount.get());
+  }
+
+  @Test
+  public void testSlowOperationDoesNotDelayOtherTimers() throws InterruptedException {
+    CountDownLatch slowRunning = new CountDownLatch(1);
+    CountDownLatch gate = new CountDownLatch(1);
+    RestartableTimer slowTimer = new RestartableTimer(1, () -> {
+      slowRunning.countDown();
+      try {
+        gate.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    CountDownLatch quickRan = new CountDownLatch(1);
+    RestartableTimer quickTimer = new RestartableTimer(10, quickRan::countDown);
+    slowTimer.start();
+    quickTimer.start();
+    try {
+      slowTimer.restart();
+      assertTrue(slowRunning.await(5, TimeUnit.SECONDS));
+      quickTimer.restart();
+      assertTrue(quickRan.await(5, TimeUnit.SECONDS));
+    } finally {
+      gate.countDown();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.neptunedreams.framework.ui;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.PlainDocument;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class BindingGroupTest {
+  @Test
+  public void testUnchangedEditorsAreSkipped() throws InterruptedException, InvocationTargetException {
+    SwingUtilities.invokeAndWait(() -> {
+      JTextField titleField = new JTextField();
+      JTextField bodyField = new JTextField();
+      BindingGroup<Entry> group = new BindingGroup<>(new JPanel());
+      group.add(FieldBinding.bindEditableString(Entry::getTitle, Entry::setTitle, titleField));
+      group.add(FieldBinding.bindEditableString(Entry::getBody, Entry::setBody, bodyField));
+      List<String> events = new ArrayList<>();
+      titleField.getDocument().addDocumentListener(new Recorder("title", events));
+      bodyField.getDocument().addDocumentListener(new Recorder("body", events));
+      List<Boolean> loadingDuringEvents = new ArrayList<>();
+      titleField.getDocument().addDocumentListener(new Recorder("", new ArrayList<>()) {
+        @Override
+        public void insertUpdate(final DocumentEvent e) { loadingDuringEvents.add(group.isLoading()); }
+      });
+      List<Entry> loaded = new ArrayList<>();
+      group.addLoadListener(loaded::add);
+
+      Entry first = new Entry("Title", "first body");
+      Entry second = new Entry("Title", "second body");
+      group.prepareEditors(first);
+      assertEquals(List.of("title", "body"), events);
+      assertEquals(List.of(true), loadingDuringEvents);
+      assertFalse(group.isLoading());
+
+      // Only the body differs, so the title's document doesn't change.
+      events.clear();
+      group.prepareEditors(second);
+      assertEquals("Title", titleField.getText());
+      assertEquals("second body", bodyField.getText());
+      assertFalse(events.contains("title"));
+      assertEquals(List.of(first, second), loaded);
+
+      // A user edit forces a reload, even if the record's value is unchanged.
+      titleField.setText("typed");
+      assertTrue(group.anyPropertyHasChanged(second));
+      group.prepareEditors(second);
+      assertEquals("Title", titleField.getText());
+      assertFalse(group.anyPropertyHasChanged(second));
+
+      // So does replacing the document.
+      bodyField.setDocument(new PlainDocument());
+      group.prepareEditors(second);
+      assertEquals("second body", bodyField.getText());
+
+      group.setEditableState(true);
+      titleField.setText("New Title");
+      group.saveEdits(second);
+      assertEquals("New Title", second.getTitle());
+    });
+  }
+
+  private static class Recorder implements DocumentListener {
+    private final String name;
+    private final List<String> events;
+
+    Recorder(String name, List<String> events) {
+      this.name = name;
+      this.events = events;
+    }
+
+    @Override
+    public void insertUpdate(final DocumentEvent e) { events.add(name); }
+
+    @Override
+    public void removeUpdate(final DocumentEvent e) { }
+
+    @Override
+    public void changedUpdate(final DocumentEvent e) { }
+  }
+
+  private static final class Entry {
+    private String title;
+    private String body;
+
+    Entry(String title, String body) {
+      this.title = title;
+      this.body = body;
+    }
+
+    String getTitle() { return title; }
+
+    void setTitle(String title) { this.title = title; }
+
+    String getBody() { return body; }
+
+    void setBody(String body) { this.body = body; }
+  }
+}
@@ -0,0 +1,112 @@
+package com.neptunedreams.framework.ui;
+
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class EdtMonitorTest {
+  private static final int SLOW_MILLIS = 500;
+
+  @Test
+  public void testSlowEventIsReported() throws Exception {
+    List<EdtMonitor.SlowEvent> slowEvents = Collections.synchronizedList(new ArrayList<>());
+    EdtMonitor monitor = EdtMonitor.install(50)
+        .addSlowEventListener(slowEvent -> { throw new IllegalStateException("Expected exception from test listener"); })
+        .addSlowEventListener(slowEvents::add);
+    try {
+      SwingUtilities.invokeAndWait(() -> { }); // fast
+      SwingUtilities.invokeAndWait(EdtMonitorTest::slowOperation);
+      SwingUtilities.invokeAndWait(() -> { }); // Make sure the listeners have run.
+
+      assertTrue(monitor.getDispatchCount() >= 2); // The last one may not be counted yet.
+      assertTrue(monitor.getSlowEventCount() >= 1); // A busy machine may make other events slow, too.
+      assertTrue(monitor.getMaxDispatchTime(TimeUnit.MILLISECONDS) >= SLOW_MILLIS);
+
+      // The failing listener didn't stop the second one.
+      EdtMonitor.SlowEvent slowEvent = null;
+      synchronized (slowEvents) {
+        for (EdtMonitor.SlowEvent event : slowEvents) {
+          if (event.getDispatchTime(TimeUnit.MILLISECONDS) >= SLOW_MILLIS) {
+            slowEvent = event;
+          }
+        }
+      }
+      assertNotNull(slowEvent);
+
+      // The sampler should fire many times during the slow operation, but on a busy machine it may not get the chance.
+      if (!slowEvent.getStackSamples().isEmpty()) {
+        assertTrue(containsSlowOperation(slowEvent.toException().getStackTrace()));
+      }
+    } finally {
+      SwingUtilities.invokeAndWait(monitor::uninstall);
+    }
+  }
+
+  @Test
+  public void testSecondaryLoopIsNotCharged() throws Exception {
+    List<EdtMonitor.SlowEvent> slowEvents = Collections.synchronizedList(new ArrayList<>());
+    EdtMonitor monitor = EdtMonitor.install(50).addSlowEventListener(slowEvents::add);
+    try {
+      SwingUtilities.invokeAndWait(() -> {
+        // Like a modal dialog: The loop waits, then dispatches a slow event, then waits again before it exits.
+        SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+        Thread thread = new Thread(() -> {
+          slowOperation();
+          try {
+            SwingUtilities.invokeAndWait(EdtMonitorTest::slowOperation);
+          } catch (InterruptedException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+          }
+          slowOperation();
+          loop.exit();
+        });
+        thread.start();
+        assertTrue(loop.enter());
+      });
+      SwingUtilities.invokeAndWait(() -> { }); // Make sure the listeners have run.
+
+      // Only the nested event is slow. The event that entered the loop took about three times as long, but it was
+      // only running for a moment.
+      int longEvents = 0;
+      synchronized (slowEvents) {
+        for (EdtMonitor.SlowEvent event : slowEvents) {
+          if (event.getDispatchTime(TimeUnit.MILLISECONDS) >= SLOW_MILLIS) {
+            longEvents++;
+            assertTrue(event.getDispatchTime(TimeUnit.MILLISECONDS) < (2 * SLOW_MILLIS));
+          }
+        }
+      }
+      assertEquals(1, longEvents);
+    } finally {
+      SwingUtilities.invokeAndWait(monitor::uninstall);
+    }
+  }
+
+  private static boolean containsSlowOperation(StackTraceElement[] stackTrace) {
+    for (StackTraceElement element : stackTrace) {
+      if ("slowOperation".equals(element.getMethodName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void slowOperation() {
+    try {
+      Thread.sleep(SLOW_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.neptunedreams.framework.ui;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class FieldBindingTest {
+  @Test
+  public void testCachedValuesTrackTheRecord() {
+    JTextField field = new JTextField();
+    FieldBinding.StringEditableBinding<Note> binding = FieldBinding.bindEditableString(Note::getText, Note::setText, field);
+    Note first = new Note("  first  ");
+    Note second = new Note("second");
+
+    binding.prepareEditor(first);
+    assertEquals("first", field.getText());
+    assertFalse(binding.propertyHasChanged(first));
+    binding.prepareEditor(second);
+    assertEquals("second", field.getText());
+    binding.prepareEditor(first);
+    assertEquals("first", field.getText());
+
+    // A change made behind the binding's back must still show up.
+    first.setText("changed elsewhere");
+    assertEquals("changed elsewhere", binding.getValue(first));
+    binding.prepareEditor(first);
+    assertEquals("changed elsewhere", field.getText());
+
+    binding.setValue(first, " set by binding ");
+    assertEquals("set by binding", binding.getValue(first));
+
+    field.setText("edited");
+    assertTrue(binding.propertyHasChanged(first));
+    binding.saveEdit(first);
+    assertFalse(binding.propertyHasChanged(first));
+    assertEquals("edited", binding.getValue(first));
+  }
+
+  @Test
+  public void testDocumentSwapping() throws Exception {
+    JTextArea area = new JTextArea();
+    area.setTabSize(4);
+    FieldBinding.StringEditableBinding<Note> binding
+        = FieldBinding.bindEditableString(Note::getText, Note::setText, area).swapDocuments(2);
+    Note first = new Note("first");
+    Note second = new Note("second");
+    binding.preloadDocument(second).get(5, TimeUnit.SECONDS);
+
+    binding.prepareEditor(first);
+    Document firstDocument = area.getDocument();
+    assertEquals("first", area.getText());
+    assertEquals(4, firstDocument.getProperty(PlainDocument.tabSizeAttribute));
+    binding.prepareEditor(second);
+    assertEquals("second", area.getText());
+    assertNotSame(firstDocument, area.getDocument());
+    binding.prepareEditor(first);
+    assertSame(firstDocument, area.getDocument()); // Reused from the cache
+
+    // An edited document must not come back.
+    area.append(" edited");
+    binding.prepareEditor(second);
+    binding.prepareEditor(first);
+    assertEquals("first", area.getText());
+    assertNotSame(firstDocument, area.getDocument());
+  }
+
+  @Test
+  public void testDirtyCheckSkipsUnchangedEditors() {
+    int[] reads = {0};
+    JTextField field = new JTextField() {
+      @Override
+      public String getText() {
+        reads[0]++;
+        return super.getText();
+      }
+    };
+    FieldBinding.StringEditableBinding<Note> binding = FieldBinding.bindEditableString(Note::getText, Note::setText, field);
+    Note note = new Note("text");
+    Note other = new Note("text");
+    binding.prepareEditor(note);
+    reads[0] = 0;
+    assertFalse(binding.propertyHasChanged(note));
+    assertEquals(0, reads[0]);
+
+    // A different record, even with the same text, needs a real comparison.
+    assertFalse(binding.propertyHasChanged(other));
+    assertEquals(1, reads[0]);
+
+    field.setText("text edited");
+    assertTrue(binding.propertyHasChanged(note));
+    binding.saveEdit(note);
+    reads[0] = 0;
+    assertFalse(binding.propertyHasChanged(note));
+    assertEquals(0, reads[0]);
+
+    // Edits that restore the original text are found by comparison, and then remembered.
+    field.setText("text edited ");
+    assertFalse(binding.propertyHasChanged(note));
+    reads[0] = 0;
+    assertFalse(binding.propertyHasChanged(note));
+    assertEquals(0, reads[0]);
+
+    // So are changes made to the record by other code.
+    note.setText("changed elsewhere");
+    assertTrue(binding.propertyHasChanged(note));
+  }
+
+  static final class Note {
+    private String text;
+
+    Note(String text) {
+      this.text = text;
+    }
+
+    String getText() { return text; }
+
+    void setText(String text) { this.text = text; }
+  }
+}
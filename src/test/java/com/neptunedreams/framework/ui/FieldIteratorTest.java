@@ -1,11 +1,19 @@
 package com.neptunedreams.framework.ui;
 
+import java.awt.Color;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
 import javax.swing.text.JTextComponent;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
@@ -78,6 +86,132 @@ public class FieldIteratorTest {
     assertEquals(element.getComponentIndex(), cmpIndex);
   }
   
+  @Test
+  public void testBackwardIteration() throws NoSuchFieldException, IllegalAccessException {
+    FieldIterator iterator = new FieldIterator(getTextComponents(), FieldIterator.Direction.BACKWARD, 5, "fox", "FOXTROT", "echo");
+    Field listIteratorField = FieldIterator.class.getDeclaredField("listIterator");
+    listIteratorField.setAccessible(true);
+    @SuppressWarnings("unchecked")
+    ListIterator<FieldIterator.SearchTermElement> privateIterator
+        = (ListIterator<FieldIterator.SearchTermElement>) listIteratorField.get(iterator);
+    assertFalse(privateIterator.hasNext());
+    match(privateIterator.previous(), "FOX", 0, 3);
+    match(privateIterator.previous(), "FOXTROT", 20, 2);
+    match(privateIterator.previous(), "FOX", 20, 2);
+    match(privateIterator.previous(), "FOX", 11, 2);
+
+    // Reversing direction returns the same element, as a ListIterator does.
+    match(privateIterator.next(), "FOX", 11, 2);
+    match(privateIterator.next(), "FOX", 20, 2);
+    match(privateIterator.previous(), "FOX", 20, 2);
+    match(privateIterator.previous(), "FOX", 11, 2);
+    match(privateIterator.previous(), "ECHO", 6, 2);
+    match(privateIterator.previous(), "FOX", 14, 1);
+    match(privateIterator.previous(), "FOXTROT", 31, 0);
+    match(privateIterator.previous(), "FOX", 31, 0);
+    match(privateIterator.previous(), "ECHO", 26, 0);
+    assertFalse(privateIterator.hasPrevious());
+    assertFalse(iterator.isEmpty());
+  }
+
+  @Test
+  public void testNoMatches() {
+    FieldIterator iterator = new FieldIterator(getTextComponents(), FieldIterator.Direction.FORWARD, 5, "zulu");
+    assertTrue(iterator.isEmpty());
+    assertFalse(iterator.hasNext());
+    assertFalse(iterator.hasPrevious());
+  }
+
+  @Test
+  public void testHighlightAll() throws Exception {
+    JTextArea area = new JTextArea();
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2000; ++i) {
+      text.append("The fox and the foxtrot, line ").append(i).append('\n');
+    }
+    area.setText(text.toString());
+    area.setSize(400, 100);
+    FieldIterator[] iterator = new FieldIterator[1];
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Void>[] future = new CompletableFuture[1];
+    SwingUtilities.invokeAndWait(() -> {
+      iterator[0] = new FieldIterator(List.of(area), FieldIterator.Direction.FORWARD, 1, "fox", "foxtrot");
+      future[0] = iterator[0].highlightAll(new DefaultHighlighter.DefaultHighlightPainter(Color.YELLOW));
+    });
+    future[0].get(5, TimeUnit.SECONDS);
+    SwingUtilities.invokeAndWait(() -> {
+      // Only the visible lines get highlights, two per line, since "fox" inside "foxtrot" isn't highlighted separately.
+      int installed = iterator[0].getInstalledHighlightCount();
+      assertTrue(installed > 0);
+      assertTrue(installed < 100);
+      assertEquals(0, installed % 2);
+      assertEquals(installed, area.getHighlighter().getHighlights().length);
+      Highlighter.Highlight second = area.getHighlighter().getHighlights()[1];
+      assertEquals("foxtrot", area.getText().substring(second.getStartOffset(), second.getEndOffset()));
+
+      iterator[0].clearHighlights();
+      assertEquals(0, area.getHighlighter().getHighlights().length);
+    });
+  }
+
+  @Test
+  public void testHighlightsFollowEdits() throws Exception {
+    JTextArea area = new JTextArea("a fox and a fox");
+    area.setSize(400, 100);
+    FieldIterator[] iterator = new FieldIterator[1];
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Void>[] future = new CompletableFuture[1];
+    SwingUtilities.invokeAndWait(() -> {
+      iterator[0] = new FieldIterator(List.of(area), FieldIterator.Direction.FORWARD, 1, "fox");
+      future[0] = iterator[0].highlightAll(new DefaultHighlighter.DefaultHighlightPainter(Color.YELLOW));
+    });
+    future[0].get(5, TimeUnit.SECONDS);
+    SwingUtilities.invokeAndWait(() -> {
+      assertEquals(2, iterator[0].getInstalledHighlightCount());
+      // The edit drops the old highlights right away, since their offsets are out of date.
+      area.setText("one fox");
+      assertEquals(0, iterator[0].getInstalledHighlightCount());
+    });
+
+    // The new search finishes on the event dispatch thread.
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    int[] installed = new int[1];
+    do {
+      SwingUtilities.invokeAndWait(() -> installed[0] = iterator[0].getInstalledHighlightCount());
+    } while ((installed[0] == 0) && (System.nanoTime() < deadline));
+    SwingUtilities.invokeAndWait(() -> {
+      assertEquals(1, iterator[0].getInstalledHighlightCount());
+      Highlighter.Highlight highlight = area.getHighlighter().getHighlights()[0];
+      assertEquals(4, highlight.getStartOffset());
+      assertEquals(7, highlight.getEndOffset());
+      iterator[0].clearHighlights();
+    });
+  }
+
+  @Test
+  public void testMatchAcrossGap() throws BadLocationException, NoSuchFieldException, IllegalAccessException {
+    JTextArea area = new JTextArea("trot and fox");
+    // Inserting leaves the content's gap right after the inserted text, so FOXTROT spans it.
+    area.getDocument().insertString(0, "fox", null);
+    FieldIterator.DocumentText text = new FieldIterator.DocumentText();
+    text.load(area.getDocument());
+    assertEquals(2, text.getPartCount());
+    assertEquals("foxtrot and fox", text.toString());
+
+    FieldIterator iterator = new FieldIterator(List.of(area), FieldIterator.Direction.FORWARD, 1, "fox", "foxtrot");
+    Field listIteratorField = FieldIterator.class.getDeclaredField("listIterator");
+    listIteratorField.setAccessible(true);
+    @SuppressWarnings("unchecked")
+    ListIterator<FieldIterator.SearchTermElement> privateIterator
+        = (ListIterator<FieldIterator.SearchTermElement>) listIteratorField.get(iterator);
+    match(privateIterator.next(), "FOX", 0, 0);
+    match(privateIterator.next(), "FOXTROT", 0, 0);
+    match(privateIterator.next(), "FOX", 12, 0);
+    assertFalse(privateIterator.hasNext());
+    match(privateIterator.previous(), "FOX", 12, 0);
+    match(privateIterator.previous(), "FOXTROT", 0, 0);
+  }
+
   @Test
   public void testEmptyIterator() {
     List<JTextComponent> componentList = getTextComponents();
@@ -0,0 +1,80 @@
+package com.neptunedreams.framework.ui;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import com.neptunedreams.framework.data.RecordModel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class RecordMatchNavigatorTest {
+  @Test
+  public void testNavigation() throws InterruptedException {
+    RecordModel<String[]> model = new RecordModel<>(() -> new String[] {"", ""}, r -> 0);
+    model.setNewList(List.of(
+        new String[] {"Lighthouse", "keeper"},
+        new String[] {"nothing", "here"},
+        new String[] {"traffic", "Light light"},
+        new String[] {"no", null},
+        new String[] {"candle", "wax"}
+    ));
+    RecordMatchNavigator<String[]> navigator
+        = new RecordMatchNavigator<>(model, List.of(r -> r[0], r -> r[1]), "light", "LIGHTHOUSE", "");
+    CountDownLatch ready = new CountDownLatch(1);
+    navigator.whenReady(ready::countDown);
+    assertTrue(ready.await(5, TimeUnit.SECONDS));
+    assertTrue(navigator.isReady());
+
+    assertEquals(2, navigator.getMatchCount(0)); // "light" and "lighthouse" both match at the same place.
+    assertEquals(0, navigator.getMatchCount(1));
+    assertEquals(2, navigator.getMatchCount(2));
+    assertEquals(2, navigator.getRecordsWithMatchesCount());
+
+    assertEquals(0, model.getRecordIndex());
+    assertTrue(navigator.goToNextMatch());
+    assertEquals(2, model.getRecordIndex());
+    assertTrue(navigator.goToNextMatch());
+    assertEquals(0, model.getRecordIndex()); // wrapped
+    assertTrue(navigator.goToPreviousMatch());
+    assertEquals(2, model.getRecordIndex()); // wrapped backward
+
+    RecordMatchNavigator<String[]> none = new RecordMatchNavigator<>(model, List.of(r -> r[0]), "zulu");
+    assertFalse(none.hasMatches());
+    assertFalse(none.goToNextMatch());
+    assertEquals(2, model.getRecordIndex());
+  }
+
+  @Test
+  public void testModelChanges() throws InterruptedException {
+    RecordModel<String[]> model = new RecordModel<>(() -> new String[] {""}, r -> 0);
+    String[] light = {"light"};
+    String[] dark = {"dark"};
+    String[] lamp = {"lamp light"};
+    model.setNewList(List.of(light, dark, dark));
+    RecordMatchNavigator<String[]> navigator = new RecordMatchNavigator<>(model, List.of(r -> r[0]), "light");
+    CountDownLatch ready = new CountDownLatch(1);
+    navigator.whenReady(ready::countDown);
+    assertTrue(ready.await(5, TimeUnit.SECONDS));
+    assertEquals(1, navigator.getMatchCount(0));
+
+    // Re-sorted, but the same size
+    model.setNewList(List.of(dark, dark, light));
+    assertEquals(0, navigator.getMatchCount(0));
+    assertTrue(navigator.goToNextMatch());
+    assertEquals(2, model.getRecordIndex());
+
+    // A record added
+    model.append(lamp);
+    assertEquals(2, navigator.getRecordsWithMatchesCount());
+    assertTrue(navigator.goToNextMatch());
+    assertEquals(2, model.getRecordIndex()); // wrapped, since the new record is the current one
+
+    // A record removed, without notifying the listeners
+    model.deleteSelected(false, 3);
+    assertEquals(1, navigator.getRecordsWithMatchesCount());
+  }
+}
@@ -0,0 +1,101 @@
+package com.neptunedreams.framework.ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JPanel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class SwipeViewTest {
+  @Test
+  public void testEasingEndpointsAndMonotonicity() {
+    for (SwipeView.Easing easing : SwipeView.Easing.values()) {
+      assertEquals(easing.name(), 0.0, easing.apply(0.0), 1.0e-12);
+      assertEquals(easing.name(), 1.0, easing.apply(1.0), 1.0e-12);
+      double prior = 0.0;
+      for (int i = 1; i <= 1000; ++i) {
+        final double value = easing.apply(i / 1000.0);
+        assertTrue(easing.name() + " at " + i, value >= prior);
+        assertTrue(easing.name() + " at " + i, value <= 1.0);
+        prior = value;
+      }
+    }
+    assertEquals(0.5, SwipeView.Easing.EASE_IN_OUT.apply(0.5), 1.0e-12);
+    assertTrue(SwipeView.Easing.EASE_OUT.apply(0.5) > 0.5);
+  }
+
+  @Test
+  public void testFrameStatistics() {
+    SwipeView.FrameStatistics statistics = new SwipeView.FrameStatistics();
+    final long start = 1_000_000_000L;
+    final long frame = TimeUnit.MILLISECONDS.toNanos(16);
+    statistics.start(start, 16);
+    assertEquals(0.0, statistics.getAverageFrameMillis(), 0.0);
+    assertEquals(0.0, statistics.getDurationMillis(), 0.0); // Not finished yet
+
+    statistics.framePainted(start + frame);
+    statistics.framePainted(start + (2 * frame));
+    statistics.framePainted(start + (5 * frame)); // Three intervals late
+    statistics.finish(start + (6 * frame));
+    assertEquals(3, statistics.getFrameCount());
+    assertEquals(1, statistics.getLateFrameCount());
+    assertEquals(48.0, statistics.getMaxFrameMillis(), 1.0e-9);
+    assertEquals(80.0 / 3, statistics.getAverageFrameMillis(), 1.0e-9);
+    assertEquals(96.0, statistics.getDurationMillis(), 1.0e-9);
+
+    // Starting again resets everything.
+    statistics.start(start, 16);
+    assertEquals(0, statistics.getFrameCount());
+    assertEquals(0, statistics.getLateFrameCount());
+    assertEquals(0.0, statistics.getMaxFrameMillis(), 0.0);
+  }
+
+  @Test
+  public void testSnapshotReuseAndGrowth() {
+    // A component that isn't on a screen has no GraphicsConfiguration, so the snapshot uses a BufferedImage.
+    JPanel panel = new JPanel();
+    panel.setBackground(Color.RED);
+    panel.setSize(100, 50);
+    SwipeView.Snapshot snapshot = new SwipeView.Snapshot();
+    assertNull(snapshot.getImage());
+    snapshot.render(panel);
+    final Image first = snapshot.getImage();
+    assertNotNull(first);
+    assertEquals(100, first.getWidth(null));
+    assertEquals(50, first.getHeight(null));
+
+    snapshot.render(panel);
+    assertSame(first, snapshot.getImage());
+
+    // Growing keeps room for both sizes, so going back doesn't allocate again.
+    panel.setSize(120, 40);
+    snapshot.render(panel);
+    final Image grown = snapshot.getImage();
+    assertNotNull(grown);
+    assertNotSame(first, grown);
+    assertEquals(120, grown.getWidth(null));
+    assertEquals(50, grown.getHeight(null));
+    panel.setSize(100, 50);
+    snapshot.render(panel);
+    assertSame(grown, snapshot.getImage());
+
+    // Draw a strip, and check that it holds the component's picture.
+    BufferedImage destination = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2 = destination.createGraphics();
+    assertTrue(snapshot.draw(g2, 30, 60, 50, panel));
+    g2.dispose();
+    assertEquals(Color.RED.getRGB(), destination.getRGB(45, 25));
+    assertEquals(Color.BLACK.getRGB(), destination.getRGB(10, 25));
+
+    snapshot.release();
+    assertNull(snapshot.getImage());
+    assertFalse(snapshot.draw(destination.createGraphics(), 0, 10, 10, panel));
+  }
+}
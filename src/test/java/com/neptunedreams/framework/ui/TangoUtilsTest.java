@@ -0,0 +1,80 @@
+package com.neptunedreams.framework.ui;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import javax.swing.ImageIcon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class TangoUtilsTest {
+  private static final int SIZE = 24;
+
+  @Test
+  public void testRecolor() {
+    final ImageIcon icon = makeIcon();
+    final Color color = new Color(180, 40, 90);
+    final ImageIcon recolored = TangoUtils.recolor(icon, color);
+    BufferedImage original = (BufferedImage) icon.getImage();
+    BufferedImage result = (BufferedImage) recolored.getImage();
+    for (int y = 0; y < SIZE; ++y) {
+      for (int x = 0; x < SIZE; ++x) {
+        assertEquals(recolorPixel(original.getRGB(x, y), color), result.getRGB(x, y));
+      }
+    }
+    assertSame(recolored, TangoUtils.recolor(icon, new Color(180, 40, 90)));
+    assertNotSame(recolored, TangoUtils.recolor(icon, Color.GREEN));
+    TangoUtils.clearRecolorCache();
+    assertNotSame(recolored, TangoUtils.recolor(icon, color));
+  }
+
+  @Test
+  public void testShiftHue() {
+    final ImageIcon icon = makeIcon();
+    final ImageIcon shifted = TangoUtils.shiftHue(icon, 85);
+    BufferedImage original = (BufferedImage) icon.getImage();
+    BufferedImage result = (BufferedImage) shifted.getImage();
+    for (int y = 0; y < SIZE; ++y) {
+      for (int x = 0; x < SIZE; ++x) {
+        assertEquals(shiftPixel(original.getRGB(x, y), 85), result.getRGB(x, y));
+      }
+    }
+    assertSame(shifted, TangoUtils.shiftHue(icon, 85));
+    assertNotSame(shifted, TangoUtils.shiftHue(icon, 170));
+  }
+
+  private static ImageIcon makeIcon() {
+    BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+    Random random = new Random(7L);
+    for (int y = 0; y < SIZE; ++y) {
+      for (int x = 0; x < SIZE; ++x) {
+        // A few colors repeat, as they do in real icons, and the rest are random.
+        final int rgb = (x < 8) ? new int[] {0x00_000000, 0xff_3465a4, 0x80_73d216}[y % 3] : random.nextInt();
+        image.setRGB(x, y, rgb);
+      }
+    }
+    return new ImageIcon(image);
+  }
+
+  // The per-pixel formulas, as RGBImageFilters used them.
+
+  @SuppressWarnings({"NumericCastThatLosesPrecision", "MagicNumber"})
+  private static int recolorPixel(int rgb, Color color) {
+    int gray = (int) (((0.580 * ((rgb >> 16) & 0xff)) + (0.754 * ((rgb >> 8) & 0xff)) + (0.466 * (rgb & 0xff))) / 3);
+    int red = Math.min((gray * color.getRed()) / 100, 255);
+    int green = Math.min((gray * color.getGreen()) / 100, 255);
+    int blue = Math.min((gray * color.getBlue()) / 100, 255);
+    return (rgb & 0xff000000) | (red << 16) | (green << 8) | blue;
+  }
+
+  @SuppressWarnings({"NumericCastThatLosesPrecision", "MagicNumber"})
+  private static int shiftPixel(int rgb, int shift) {
+    float[] hsb = Color.RGBtoHSB((rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff, null);
+    float newHue = ((((int) (hsb[0] * 256)) + shift) % 256) / 256.0F;
+    return (rgb & 0xff000000) | (Color.HSBtoRGB(newHue, hsb[1], hsb[2]) & 0x00ff_ffff);
+  }
+}
@@ -0,0 +1,79 @@
+package com.neptunedreams.framework.ui;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JButton;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.event.CaretListener;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Miguel Muñoz
+ */
+public class UIMenusTest {
+  private static final int FOCUS_CHANGES = 2000;
+
+  @Test
+  public void testFocusTrackingDoesNotCopyText() throws Exception {
+    SwingUtilities.invokeAndWait(() -> {
+      AtomicInteger textReads = new AtomicInteger();
+      JTextArea first = textArea(textReads);
+      JTextArea second = textArea(textReads);
+      UIMenus menus = UIMenus.Menu;
+      menus.permanentFocusChanged(first);
+      assertSame(first, menus.getCaretOwner());
+      assertTrue(hasListener(first, menus));
+      menus.permanentFocusChanged(second);
+      assertFalse(hasListener(first, menus));
+      assertTrue(hasListener(second, menus));
+
+      // Focus leaves the text components, then comes back to the same one.
+      menus.permanentFocusChanged(new JButton());
+      assertNull(menus.getCaretOwner());
+      assertFalse(hasListener(second, menus));
+      menus.permanentFocusChanged(second);
+      assertTrue(hasListener(second, menus));
+
+      menus.permanentFocusChanged(null);
+      assertEquals(0, textReads.get());
+    });
+  }
+
+  @Test
+  public void testRepeatedFocusChanges() throws Exception {
+    SwingUtilities.invokeAndWait(() -> {
+      AtomicInteger textReads = new AtomicInteger();
+      JTextArea first = textArea(textReads);
+      JTextArea second = textArea(textReads);
+      UIMenus menus = UIMenus.Menu;
+      for (int i = 0; i < FOCUS_CHANGES; ++i) {
+        menus.permanentFocusChanged(((i % 2) == 0) ? first : second);
+      }
+      // FOCUS_CHANGES is even, so the second area has focus now.
+      assertSame(second, menus.getCaretOwner());
+      assertFalse(hasListener(first, menus));
+      assertEquals(1, Arrays.stream(second.getCaretListeners()).filter(menus::equals).count());
+      menus.permanentFocusChanged(null);
+      assertEquals(0, textReads.get());
+    });
+  }
+
+  private static JTextArea textArea(AtomicInteger textReads) {
+    JTextArea area = new JTextArea() {
+      @Override
+      public String getText() {
+        textReads.incrementAndGet();
+        return super.getText();
+      }
+    };
+    area.append("Some text that focus tracking should never need to read.");
+    return area;
+  }
+
+  private static boolean hasListener(JTextArea area, CaretListener listener) {
+    return Arrays.asList(area.getCaretListeners()).contains(listener);
+  }
+}